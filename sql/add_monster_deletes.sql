@@ -0,0 +1,16 @@
+-- Adds the table DBConnection.changesSince reads deleted monsters from, so a reload only reads
+-- the rows that changed instead of every name to find the ones that are gone. Triggers record
+-- every delete, and every rename as a delete of the old name, whoever makes it.
+-- Run it once, after sql/add_updated_at.sql, e.g. mysql -u <user> -p <user> < sql/add_monster_deletes.sql
+
+CREATE TABLE MonsterDeletes (
+    name VARCHAR(255) NOT NULL,
+    deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX (deleted_at)
+);
+
+CREATE TRIGGER monster_deleted AFTER DELETE ON Monsters
+    FOR EACH ROW INSERT INTO MonsterDeletes(name) VALUES (OLD.name);
+
+CREATE TRIGGER monster_renamed AFTER UPDATE ON Monsters
+    FOR EACH ROW INSERT INTO MonsterDeletes(name) SELECT OLD.name FROM DUAL WHERE NOT (OLD.name <=> NEW.name);
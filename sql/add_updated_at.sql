@@ -0,0 +1,7 @@
+-- Adds the column DBConnection.syncWatermark and changesSince need to read only the
+-- monsters changed since the last reload, instead of the whole table every time.
+-- Run it once against the database of every user, e.g. mysql -u <user> -p <user> < sql/add_updated_at.sql
+
+ALTER TABLE Monsters
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    ADD INDEX (updated_at);
@@ -0,0 +1,397 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*    BatchGenerator.java    *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package batch;
+
+import game.DataFactory;
+import game.Dice;
+import game.Level;
+import game.LevelAnalysis;
+import game.LevelSink;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import monsters.MonsterCatalog;
+import monsters.SharedCatalog;
+
+/**
+* This class generates levels from the command line and writes each one to disk,
+* as text and in the save format the gui loads. It never touches the gui.
+*/
+public class BatchGenerator {
+
+    /** The usage message printed when the arguments are wrong. */
+    private static final String USAGE = "Usage: java -jar batch.jar [options]\n"
+        + "  -n <levels>     number of levels to generate (default 1)\n"
+        + "  -c <chambers>   number of chambers on each level (default " + Level.DEFAULT_CHAMBERS + ")\n"
+        + "  -t <threads>    number of levels generated at once (default: number of processors)\n"
+        + "  -s <seed>       seed of the first level, the next levels use seed + 1, seed + 2, ...\n"
+        + "  -o <directory>  directory to write the levels to (default levels)\n"
+        + "  -f <format>     text, save or both (default both)\n"
+        + "  -b <chambers>   stream each level to text this many chambers at a time, so levels\n"
+        + "                  larger than memory can be written (needs -f text, no -a)\n"
+        + "  -l <challenge>  pick monsters whose lower and upper bounds hold the challenge\n"
+        + "                  (default: any monster)\n"
+        + "  -r              generate levels where every chamber can reach every other chamber\n"
+        + "  -a              add the route length from chamber 1 to every chamber, the number of\n"
+        + "                  unconnected groups and the articulation chambers to the text";
+    /** The number of levels to generate. */
+    private int numLevels;
+    /** The number of chambers on each level. */
+    private int numChambers;
+    /** The number of levels generated at once. */
+    private int numThreads;
+    /** The seed of the first level. */
+    private long seed;
+    /** The directory the levels are written to. */
+    private File outputDir;
+    /** Boolean representing if the levels are written as text. */
+    private boolean writeText;
+    /** Boolean representing if the levels are written in the save format. */
+    private boolean writeSave;
+    /** The number of chambers streamed at a time, or 0 if levels are kept whole. */
+    private int streamBatch;
+    /** The challenge the monsters are picked for, or 0 for any monster. */
+    private int challenge;
+    /** Boolean representing if every chamber on a level must be reachable. */
+    private boolean connected;
+    /** Boolean representing if the analysis of each level is added to the text. */
+    private boolean writeAnalysis;
+    /** The catalog of all the monsters, loaded once for every level. */
+    private MonsterCatalog catalog;
+
+    /**
+    * This is the constructor for this class, it sets the default options.
+    */
+    public BatchGenerator() {
+        this.numLevels = 1;
+        this.numChambers = Level.DEFAULT_CHAMBERS;
+        this.numThreads = Runtime.getRuntime().availableProcessors();
+        this.seed = Dice.newSeed();
+        this.outputDir = new File("levels");
+        this.writeText = true;
+        this.writeSave = true;
+    }
+
+    /**
+    * This is the main method for the batch generator.
+    * @param args - The command line options.
+    */
+    public static void main(String[] args) {
+        BatchGenerator generator = new BatchGenerator();
+
+        try {
+            generator.setOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        System.exit(generator.run());
+    }
+
+    /**
+    * This method sets the options of the generator from the command line.
+    * @param args - The command line options.
+    */
+    public void setOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-a":
+                    this.writeAnalysis = true;
+                    continue;
+                case "-r":
+                    this.connected = true;
+                    continue;
+                case "-n":
+                    this.numLevels = parsePositive(args[i], value);
+                    break;
+                case "-c":
+                    this.numChambers = parsePositive(args[i], value);
+                    if (this.numChambers < 2) {
+                        throw new IllegalArgumentException("-c needs at least 2 chambers, got " + value);
+                    }
+                    break;
+                case "-t":
+                    this.numThreads = parsePositive(args[i], value);
+                    break;
+                case "-s":
+                    this.seed = parseSeed(value);
+                    break;
+                case "-o":
+                    this.outputDir = new File(requireValue(args[i], value));
+                    break;
+                case "-f":
+                    setFormat(requireValue(args[i], value));
+                    break;
+                case "-b":
+                    this.streamBatch = parsePositive(args[i], value);
+                    break;
+                case "-l":
+                    this.challenge = parsePositive(args[i], value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            i++;
+        }
+        if (this.streamBatch > 0 && (this.writeSave || this.writeAnalysis)) {
+            throw new IllegalArgumentException("-b only writes text, use it with -f text and without -a");
+        }
+    }
+
+    /**
+    * This method sets which formats the levels are written in.
+    * @param format - text, save or both.
+    */
+    private void setFormat(String format) {
+        switch (format) {
+            case "text":
+                this.writeText = true;
+                this.writeSave = false;
+                break;
+            case "save":
+                this.writeText = false;
+                this.writeSave = true;
+                break;
+            case "both":
+                this.writeText = true;
+                this.writeSave = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    /**
+    * This method checks that an option has a value.
+    * @param option - The option.
+    * @param value - The value after the option, or null if there is none.
+    * @return - The value.
+    */
+    private static String requireValue(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return value;
+    }
+
+    /**
+    * This method parses the value of an option that must be a positive number.
+    * @param option - The option.
+    * @param value - The value after the option.
+    * @return - The number.
+    */
+    private static int parsePositive(String option, String value) {
+        int number;
+        try {
+            number = Integer.parseInt(requireValue(option, value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " needs a number, got " + value);
+        }
+        if (number < 1) {
+            throw new IllegalArgumentException(option + " needs a positive number, got " + value);
+        }
+        return number;
+    }
+
+    /**
+    * This method parses the seed option.
+    * @param value - The value after the option.
+    * @return - The seed.
+    */
+    private static long parseSeed(String value) {
+        try {
+            return Long.parseLong(requireValue("-s", value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("-s needs a number, got " + value);
+        }
+    }
+
+    /**
+    * This method loads the monsters once and generates all the levels on a pool
+    * of worker threads, each level being written out as soon as it is done.
+    * @return - The exit code, 0 if every level was written.
+    */
+    public int run() {
+        this.catalog = SharedCatalog.get();
+        if (this.catalog.size() == 0) {
+            System.err.println("No monsters could be loaded, no levels were generated.");
+            return 1;
+        }
+        if (!this.outputDir.isDirectory() && !this.outputDir.mkdirs()) {
+            System.err.println("Could not create " + this.outputDir);
+            return 1;
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(this.numThreads, (task) -> new Thread(task, "level-worker"));
+        for (int i = 0; i < this.numLevels; i++) {
+            int number = i + 1;
+            long levelSeed = this.seed + i;
+            workers.execute(() -> {
+                if (!generate(number, levelSeed)) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Generated " + (this.numLevels - failed.get()) + " of " + this.numLevels + " levels in " + millis + " ms (first seed " + this.seed + ")");
+        return failed.get() == 0 ? 0 : 1;
+    }
+
+    /**
+    * This method generates one level and writes it out.
+    * @param number - The number of the level, used to name its files.
+    * @param levelSeed - The seed of the level.
+    * @return - True if the level was written.
+    */
+    private boolean generate(int number, long levelSeed) {
+        try {
+            Level level = new Level(levelSeed, this.catalog);
+            level.setConnected(this.connected);
+            level.setChallenge(this.challenge);
+            if (this.streamBatch > 0) {
+                streamText(level, new File(this.outputDir, "level-" + number + ".txt"));
+                return true;
+            }
+            level.generateLevel(this.numChambers);
+            if (this.writeText) {
+                writeText(level, new File(this.outputDir, "level-" + number + ".txt"));
+            }
+            if (this.writeSave) {
+                writeSave(level, new File(this.outputDir, "level-" + number + ".level"));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Level " + number + " (seed " + levelSeed + ") failed: " + e);
+            return false;
+        }
+    }
+
+    /**
+    * This method writes the description of every chamber and passage of a level to a file.
+    * @param level - The level to write.
+    * @param file - The file to write to.
+    * @throws IOException - If the file could not be written.
+    */
+    private void writeText(Level level, File file) throws IOException {
+        DataFactory data = level.getDataFactory();
+
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write("Seed: " + level.getSeed() + "\r\n\r\n");
+            for (int i = 0; i < level.getChambers().size(); i++) {
+                out.write(data.getChamberDesc(i));
+                writeLines(out, data.getChamberExits(i + 1));
+            }
+            for (int i = 0; i < level.getPassages().size(); i++) {
+                out.write(data.getPassageDesc(i));
+                writeLines(out, data.getPassageExits(i + 1));
+            }
+            if (this.writeAnalysis) {
+                writeAnalysis(level, out);
+            }
+        }
+    }
+
+    /**
+    * This method generates a level straight into a file, each chamber followed
+    * by the passages leading out of it, without keeping the level in memory.
+    * @param level - The level to generate.
+    * @param file - The file to write to.
+    * @throws IOException - If the file could not be written.
+    */
+    private void streamText(Level level, File file) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write("Seed: " + level.getSeed() + "\r\n\r\n");
+            level.streamLevel(this.numChambers, this.streamBatch, new LevelSink() {
+                @Override
+                public void addChamber(int id, String description, ArrayList<String> exits) throws IOException {
+                    out.write(description);
+                    writeLines(out, exits);
+                }
+
+                @Override
+                public void addPassage(int id, String description, ArrayList<String> exits) throws IOException {
+                    out.write(description);
+                    writeLines(out, exits);
+                }
+            }, null);
+        }
+    }
+
+    /**
+    * This method writes how the chambers of a level are joined.
+    * @param level - The level to analyse.
+    * @param out - The writer to write to.
+    * @throws IOException - If the analysis could not be written.
+    */
+    private static void writeAnalysis(Level level, BufferedWriter out) throws IOException {
+        LevelAnalysis analysis = new LevelAnalysis(level.getGraph());
+        int[] distances = analysis.getDistances(0);
+
+        out.write("============ Analysis ============\r\n");
+        out.write("Unconnected groups of chambers: " + analysis.getNumComponents() + "\r\n");
+        out.write("Articulation chambers:");
+        for (int chamber : analysis.getArticulationChambers()) {
+            out.write(" " + (chamber + 1));
+        }
+        out.write("\r\n");
+        for (int i = 0; i < distances.length; i++) {
+            String length = distances[i] < 0 ? "no route" : distances[i] + " passage(s)";
+            out.write("Chamber 1 to Chamber " + (i + 1) + ": " + length + "\r\n");
+        }
+    }
+
+    /**
+    * This method writes a list of descriptions followed by a blank line.
+    * @param out - The writer to write to.
+    * @param lines - The descriptions to write.
+    * @throws IOException - If the descriptions could not be written.
+    */
+    private static void writeLines(BufferedWriter out, ArrayList<String> lines) throws IOException {
+        for (String line : lines) {
+            out.write(line);
+        }
+        out.write("\r\n");
+    }
+
+    /**
+    * This method writes a level in the save format used by the gui.
+    * @param level - The level to write.
+    * @param file - The file to write to.
+    * @throws IOException - If the file could not be written.
+    */
+    private static void writeSave(Level level, File file) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(level);
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * This package generates Dnd levels from the command line, without the gui.
+ *
+ * @author Muhammad Ali Ghaznavi
+ */
+package batch;
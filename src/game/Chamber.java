@@ -8,15 +8,18 @@
 
 package game;
 
-import dnd.die.Die;
 import dnd.exceptions.UnusualShapeException;
 import dnd.models.ChamberContents;
 import dnd.models.ChamberShape;
-import dnd.models.Exit;
 import dnd.models.Treasure;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Random;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
 import monsters.Monster;
 
 /**
@@ -24,10 +27,41 @@ import monsters.Monster;
 */
 public class Chamber extends Space {
 
+    /** The version of the serialized form, kept from before the class changed so saved levels still load. */
+    private static final long serialVersionUID = -1507799414503893428L;
+
+    /** The lowest shape roll that gives an unusual shape. */
+    private static final int UNUSUAL_ROLL = 18;
+    /** The area of a chamber above which it gets an extra exit. */
+    private static final int LARGE_AREA = 600;
+    /** The unusual shapes, indexed by a d20 roll - 1. */
+    private static final String[] UNUSUAL_SHAPES = {"Circular", "Circular", "Circular", "Circular", "Circular",
+        "Triangular", "Triangular", "Triangular", "Trapezoidal", "Trapezoidal", "Trapezoidal", "Custom Shape",
+        "Custom Shape", "Oval", "Oval", "Hexagonal", "Hexagonal", "Octagonal", "Octagonal", "Cave"};
+    /** The areas of unusual shapes, indexed by a d20 roll - 1. */
+    private static final int[] UNUSUAL_AREAS = {500, 500, 500, 9500, 900, 900, 1300, 1300, 2000, 2000,
+        2700, 2700, 3400, 5000, 5000, 5000, 5000, 5000, 5000, 5000};
+    /** The areas of the usual shapes, indexed by the shape roll. */
+    private static final int[] SHAPE_AREAS = new int[UNUSUAL_ROLL];
+
+    static {
+        for (int roll = 1; roll < UNUSUAL_ROLL; roll++) {
+            SHAPE_AREAS[roll] = ChamberShape.selectChamberShape(roll).getArea();
+        }
+    }
+
     /** Holds the description of the contents of the Chamber. */
     private ChamberContents myContents;
     /** Holds the description of the shape of the Chamber. */
     private ChamberShape mySize;
+    /** The roll the shape of the Chamber was chosen with. */
+    private int shapeRoll;
+    /** The name of the shape if it is unusual. */
+    private String unusualShape;
+    /** The area of the shape if it is unusual. */
+    private int unusualArea;
+    /** The number of exits from the Chamber. */
+    private int numExits;
     /** A list of monsters in the chamber. */
     private ArrayList<Monster> monsters;
     /** A list of treasures in the chamber. */
@@ -35,28 +69,155 @@ public class Chamber extends Space {
     /** A list of doors in the chamber. */
     private ArrayList<Door> doors;
     /** A list of exits in the chamber. */
-    private ArrayList<Exit> exits;
+    private ArrayList<SeededExit> exits;
     /** HashMap that holds the Exits associated with the doors. */
-    private HashMap<Exit, Door> doorMap;
+    private HashMap<SeededExit, Door> doorMap;
     /** Holds an id number for chamber on a level. */
     private int idNumber;
     /** The Current Level. */
     private Level level;
+    /** The Dice the contents, exits and doors are rolled with the first time
+    * they are needed, or null once they are rolled. */
+    private transient volatile Dice details;
+    /** What picks the monsters rolled with details, taken from the level when
+    * the chamber was made, or null once they are rolled. */
+    private transient Function<Dice, Monster> detailsMonsters;
 
     /**
     * This is the default constructor for chamber.
     * @param theLevel - The Current level.
     */
     public Chamber(Level theLevel) {
+        this(theLevel, new Dice());
+    }
 
-        this.doorMap = new HashMap<Exit, Door>();
-        setContents();
-        setShape();
+    /**
+    * This constructor generates a chamber with all its rolls taken from the Dice passed to it.
+    * @param theLevel - The Current level.
+    * @param dice - The Dice to roll with.
+    */
+    public Chamber(Level theLevel, Dice dice) {
+        this(theLevel, dice, false);
+    }
+
+    /**
+    * This constructor generates a chamber that can put off rolling what is in it.
+    * The shape and the doors are always rolled, since the level needs them to join
+    * the chambers. The contents, the exits and the state of the doors are rolled
+    * with a Dice split off first, so they come out the same whenever they are rolled.
+    * @param theLevel - The Current level.
+    * @param dice - The Dice to roll with.
+    * @param lazy - True to roll the contents, exits and doors the first time they are needed.
+    */
+    Chamber(Level theLevel, Dice dice, boolean lazy) {
+
+        Dice contentDice = dice.split();
+
+        this.doorMap = new HashMap<SeededExit, Door>();
+        rollShape(dice, this);
         setLevel(theLevel);
         initArrays();
-        generateContents();
+        createDoors();
         setIdNumber(0);
+        if (lazy) {
+            this.detailsMonsters = theLevel.getMonsterPicker();
+            this.details = contentDice;
+        } else {
+            generateContents(contentDice, theLevel.getMonsterPicker());
+        }
+
+    }
+
+    /**
+    * This method rolls the contents, exits and doors of the chamber if they have
+    * not been rolled yet. It is called before anything that reads or changes them.
+    */
+    void materialize() {
+
+        if (this.details != null) {
+            synchronized (this) {
+                Dice dice = this.details;
+                if (dice != null) {
+                    generateContents(dice, this.detailsMonsters);
+                    this.details = null;
+                    this.detailsMonsters = null;
+                }
+            }
+        }
+
+    }
+
+    /**
+    * This method rolls the contents, exits and state of the doors of the chamber
+    * again. Its shape, its id and where its doors lead stay the same. A chamber
+    * that has not been rolled yet is just given the new Dice, and the monsters
+    * the level has now, to roll with.
+    * @param dice - The Dice to roll with.
+    */
+    synchronized void regenerate(Dice dice) {
+
+        if (this.details != null) {
+            this.detailsMonsters = this.level.getMonsterPicker();
+            this.details = dice;
+            return;
+        }
+        this.monsters.clear();
+        this.treasures.clear();
+        this.exits.clear();
+        this.doorMap.clear();
+        generateContents(dice, this.level.getMonsterPicker());
+
+    }
+
+    /**
+    * This method rolls everything in the chamber before it is saved, since the
+    * Dice it would be rolled with is not saved.
+    * @param out - The stream the chamber is written to.
+    * @throws IOException - If the chamber could not be written.
+    */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
+    }
+
+    /**
+    * This method loads a chamber that was saved. A chamber saved before its shape
+    * roll was kept gets its number of exits and unusual shape from its ChamberShape,
+    * and one saved with library Exits gets them as a SeededExit.
+    * @param in - The stream the chamber is read from.
+    * @throws IOException - If the chamber could not be read.
+    * @throws ClassNotFoundException - If a class in the chamber could not be found.
+    */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        readExits();
+        if (this.shapeRoll == 0 && this.mySize != null) {
+            this.numExits = this.mySize.getNumExits();
+            try {
+                this.mySize.getLength();
+            } catch (UnusualShapeException e) {
+                this.unusualShape = this.mySize.getShape();
+                this.unusualArea = this.mySize.getArea();
+            }
+        }
+    }
 
+    /**
+    * This method turns the exits of a chamber that was saved with library Exits
+    * into a SeededExit each, keeping the same exit in the list and the map.
+    */
+    private void readExits() {
+        Map<Object, SeededExit> saved = new IdentityHashMap<Object, SeededExit>();
+        ArrayList<SeededExit> savedExits = new ArrayList<SeededExit>();
+        for (Object exit : (ArrayList<?>) this.exits) {
+            savedExits.add(saved.computeIfAbsent(exit, SeededExit::of));
+        }
+        HashMap<SeededExit, Door> savedDoors = new HashMap<SeededExit, Door>();
+        for (Map.Entry<?, Door> entry : ((HashMap<?, Door>) this.doorMap).entrySet()) {
+            savedDoors.put(saved.computeIfAbsent(entry.getKey(), SeededExit::of), entry.getValue());
+        }
+        this.exits = savedExits;
+        this.doorMap = savedDoors;
     }
 
     /**
@@ -70,21 +231,88 @@ public class Chamber extends Space {
     }
 
     /**
-    * This method sets the shape of the chamber.
+    * This method rolls the shape of a chamber and the number of exits from it.
+    * Unusual shapes and the number of exits are rolled here rather than by the
+    * library, which would roll its own die. The constructor and countExits both
+    * roll with this method, so they make the same rolls in the same order.
+    * @param dice - The Dice to roll with.
+    * @param chamber - The chamber to set the shape and number of exits of, or null to only count the exits.
+    * @return - The number of exits, which is also the number of doors.
     */
-    private void setShape() {
+    private static int rollShape(Dice dice, Chamber chamber) {
+
+        int roll = dice.d20();
+        String shape = null;
+        int area;
 
-        this.mySize = ChamberShape.selectChamberShape(Die.d20());
+        if (roll >= UNUSUAL_ROLL) {
+            shape = UNUSUAL_SHAPES[dice.d20() - 1];
+            area = UNUSUAL_AREAS[dice.d20() - 1];
+        } else {
+            area = SHAPE_AREAS[roll];
+        }
+        int count = rollNumExits(dice, area);
+
+        if (chamber != null) {
+            chamber.shapeRoll = roll;
+            if (shape != null) {
+                chamber.unusualShape = shape;
+                chamber.unusualArea = area;
+            }
+            chamber.numExits = count;
+        }
+        return count;
+
+    }
+
+    /**
+    * This method rolls the number of exits from a chamber based on its area.
+    * @param dice - The Dice to roll with.
+    * @param area - The area of the chamber.
+    * @return - The number of exits.
+    */
+    private static int rollNumExits(Dice dice, int area) {
+
+        int roll = dice.d20();
+        int count;
+
+        if (roll < 4) {
+            count = 1;
+        } else if (roll < 7) {
+            count = 2;
+        } else if (roll < 10) {
+            count = 3;
+        } else if (roll < 16) {
+            count = 4;
+        } else {
+            count = dice.d4();
+        }
+
+        return area > LARGE_AREA ? count + 1 : count;
+
+    }
+
+    /**
+    * This method rolls the number of exits a chamber will have without building
+    * it, with the same rolls the constructor makes up to the exits.
+    * @param dice - The Dice the chamber will be built with.
+    * @return - The number of exits, which is also the number of doors.
+    */
+    static int countExits(Dice dice) {
+
+        dice.split();
+        return rollShape(dice, null);
 
     }
 
     /**
     * This method sets the contents of the chamber.
+    * @param dice - The Dice to roll with.
     */
-    private void setContents() {
+    private void setContents(Dice dice) {
 
         this.myContents = new ChamberContents();
-        this.myContents.chooseContents(Die.d20());
+        this.myContents.chooseContents(dice.d20());
 
     }
 
@@ -120,12 +348,16 @@ public class Chamber extends Space {
     }
 
     /**
-    * This method creates a new Monster and adds it to the chamber.
+    * This method creates a new Monster and adds it to the chamber, unless there are no monsters.
+    * @param dice - The Dice to roll with.
+    * @param picker - What picks the monster.
     */
-    private void addMonster() {
+    private void addMonster(Dice dice, Function<Dice, Monster> picker) {
 
-        Monster theMonster = this.level.getRandMonster();
-        this.monsters.add(theMonster);
+        Monster theMonster = picker.apply(dice);
+        if (theMonster != null) {
+            this.monsters.add(theMonster);
+        }
 
     }
 
@@ -134,6 +366,7 @@ public class Chamber extends Space {
     * @param monster - The Monster to add.
     */
     public void addMonster(Monster monster) {
+        materialize();
         this.monsters.add(monster);
     }
 
@@ -144,6 +377,7 @@ public class Chamber extends Space {
     public void removeMonster(Monster theMonster) {
         Monster currMonster;
 
+        materialize();
         for (int i = 0; i < monsters.size(); i++) {
             currMonster = this.monsters.get(i);
             if (theMonster.getName().equals(currMonster.getName())) {
@@ -160,6 +394,7 @@ public class Chamber extends Space {
     public void removeTreasure(Treasure theTreasure) {
         Treasure currTreasure;
 
+        materialize();
         for (int i = 0; i < treasures.size(); i++) {
             currTreasure = this.treasures.get(i);
             if (theTreasure.getDescription().equals(currTreasure.getDescription())) {
@@ -175,6 +410,7 @@ public class Chamber extends Space {
     */
     public ArrayList<Monster> getMonsters() {
 
+        materialize();
         return this.monsters;
 
     }
@@ -182,11 +418,12 @@ public class Chamber extends Space {
     /**
     * This method creates a new instance of a treasure, chooses
     * its type on random and adds it to the Chamber.
+    * @param dice - The Dice to roll with.
     */
-    private void addTreasure() {
+    private void addTreasure(Dice dice) {
 
         Treasure theTreasure = new Treasure();
-        theTreasure.chooseTreasure(die100());
+        theTreasure.chooseTreasure(dice.d100());
         this.treasures.add(theTreasure);
 
     }
@@ -197,6 +434,7 @@ public class Chamber extends Space {
     */
     public void addTreasure(Treasure theTreasure) {
 
+        materialize();
         this.treasures.add(theTreasure);
 
     }
@@ -207,6 +445,7 @@ public class Chamber extends Space {
     */
     public ArrayList<Treasure> getTreasure() {
 
+        materialize();
         return this.treasures;
     }
 
@@ -220,6 +459,7 @@ public class Chamber extends Space {
 
         String desc;
 
+        materialize();
         desc = "===================================\r\n" + "============ Chamber " + getIdNumber() + " ============\r\n" + "===================================\r\n";
         desc = getShapeDescription(desc);
         desc = desc.concat(getContentDescription());
@@ -247,22 +487,28 @@ public class Chamber extends Space {
 
     /**
     * This method generates the contents of the chamber. Including
-    * Monsters, Treasure, Exits and Doors.
+    * Monsters, Treasure, Exits and the state of the Doors.
+    * @param dice - The Dice to roll with.
+    * @param picker - What picks the monsters.
     */
-    private void generateContents() {
+    private void generateContents(Dice dice, Function<Dice, Monster> picker) {
 
+        if (this.shapeRoll != 0) {
+            this.mySize = ChamberShape.selectChamberShape(this.shapeRoll);
+        }
+        setContents(dice);
         String desc = this.myContents.getDescription();
 
         if (desc.compareTo("monster only") == 0) {
-            addMonster();
+            addMonster(dice, picker);
         } else if (desc.compareTo("monster and treasure") == 0) {
-            addMonster();
-            addTreasure();
+            addMonster(dice, picker);
+            addTreasure(dice);
         } else if (desc.compareTo("treasure") == 0) {
-            addTreasure();
+            addTreasure(dice);
         }
 
-        createExits();
+        createExits(dice);
 
     }
 
@@ -308,8 +554,8 @@ public class Chamber extends Space {
     * @return A String description of the shape
     */
     private String getUnusualShapeDescription(String description) {
-        String shape = this.mySize.getShape();
-        int area = this.mySize.getArea();
+        String shape = this.unusualShape;
+        int area = this.unusualArea;
 
         description = description.concat("Description: " + shape + ", about " + area + " sq. ft" + "\r\n");
 
@@ -378,58 +624,55 @@ public class Chamber extends Space {
 
     /**
     * This method creats the exits from the chamber.
+    * @param dice - The Dice to roll with.
     */
-    private void createExits() {
+    private void createExits(Dice dice) {
 
         for (int i = 0; i < getNumExits(); i++) {
-            Exit exit = new Exit();
+            SeededExit exit = new SeededExit(dice);
             this.exits.add(exit);
         }
 
-        setExits();
+        setExits(dice);
 
     }
 
     /**
-    * This method creates a door (an exit from the chamber)
-    * and attaches the door to this chamber.
+    * This method rolls the state of the door at each exit from the chamber.
+    * @param dice - The Dice to roll with.
     */
-    private void setExits() {
+    private void setExits(Dice dice) {
 
         for (int i = 0; i < this.exits.size(); i++) {
-            Exit theExit = this.exits.get(i);
-            Door door = new Door(theExit);
-            door.setIdNumber(i + 1);
-            door.addSpace(this);
+            SeededExit theExit = this.exits.get(i);
+            Door door = this.doors.get(i);
+            door.setDetails(theExit, dice);
             this.doorMap.put(theExit, door);
         }
 
     }
 
     /**
-    * This function gets the number of exits from the Chamber.
-    * @return An int representing the number of exits.
+    * This method creates a door for every exit from the chamber and attaches
+    * the doors to this chamber. Where the doors are and what state they are in
+    * is rolled with the exits.
     */
-    public int getNumExits() {
-
-        int numExits;
+    private void createDoors() {
 
-        numExits = this.mySize.getNumExits();
+        for (int i = 0; i < getNumExits(); i++) {
+            Door door = new Door(this, i + 1);
+            door.addSpace(this);
+        }
 
-        return numExits;
     }
 
     /**
-    * This method provides a die used in generating random content in other methods.
-    * @return A random integer between 1-100.
+    * This function gets the number of exits from the Chamber.
+    * @return An int representing the number of exits.
     */
-    private int die100() {
-
-        Random die100 = new Random();
-
-        int roll = die100.nextInt(101 - 1) + 1;
+    public int getNumExits() {
 
-        return roll;
+        return this.numExits;
     }
 
     /**
@@ -438,7 +681,7 @@ public class Chamber extends Space {
     private void initArrays() {
 
         this.doors = new ArrayList<Door>();
-        this.exits = new ArrayList<Exit>();
+        this.exits = new ArrayList<SeededExit>();
         this.monsters = new ArrayList<Monster>();
         this.treasures = new ArrayList<Treasure>();
 
@@ -9,7 +9,11 @@
 package game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.io.Serializable;
 
 /**
@@ -17,8 +21,9 @@ import java.io.Serializable;
 */
 public class DataFactory implements Serializable {
 
-    /** A map of all the doors and their target chambers. */
-    private HashMap<Door, ArrayList<Chamber>> doorMap;
+    /** The version of the serialized form, kept from before the class changed so saved levels still load. */
+    private static final long serialVersionUID = -1148454141498706720L;
+
     /** A map of all the chambers and all their exits. */
     private HashMap<Integer, ArrayList<String>> chamberExits;
     /** A map of all the passages and all their exits. */
@@ -40,7 +45,6 @@ public class DataFactory implements Serializable {
     */
     public DataFactory(Level currLevel) {
         setLevel(currLevel);
-        setDoorMap();
         setPassages();
         setChambers();
     }
@@ -50,25 +54,104 @@ public class DataFactory implements Serializable {
     * the whole floor and then prints it all out.
     */
     public void generateLevel() {
+        generateLevel(null);
+    }
+
+    /**
+    * This method gets the description of the whole floor, building the
+    * descriptions of the chambers and passages in parallel on the pool passed to it.
+    * @param pool - The pool to build on, or null to build on the calling thread.
+    */
+    public void generateLevel(ForkJoinPool pool) {
         setChamberIds();
         setPassageIds();
-        setChamberDescriptions();
-        setPassageDescriptions();
+        if (this.theLevel.isLazy()) {
+            clearDescriptions();
+        } else {
+            setChamberDescriptions(pool);
+            setPassageDescriptions(pool);
+        }
     }
 
     /**
-    * This method resets all teh chamber and passage descriptions.
+    * This method resets all teh chamber and passage descriptions. The descriptions
+    * of a lazy level are built again the next time they are asked for.
     */
     public void resetDescription() {
-        setChamberDescriptions();
-        setPassageDescriptions();
+        if (this.theLevel.isLazy()) {
+            clearDescriptions();
+        } else {
+            setChamberDescriptions(null);
+            setPassageDescriptions(null);
+        }
+    }
+
+    /**
+    * This method forgets all the descriptions, so each one is built and kept
+    * the first time it is asked for.
+    */
+    private void clearDescriptions() {
+        chambersDesc = new ArrayList<String>(Collections.nCopies(this.allChambers.size(), (String) null));
+        passagesDesc = new ArrayList<String>(Collections.nCopies(this.allPassages.size(), (String) null));
+        chamberExits = new HashMap<Integer, ArrayList<String>>();
+        passageExits = new HashMap<Integer, ArrayList<String>>();
+    }
+
+    /**
+    * This method forgets the descriptions a regenerated chamber changes: its own
+    * and the exits of every passage through its doors. They are built again the
+    * next time they are asked for.
+    * @param theChamber - The chamber that was regenerated.
+    */
+    void refreshChamber(Chamber theChamber) {
+        forgetChamber(theChamber);
+        for (Door door : theChamber.getDoors()) {
+            forgetPassagesThrough(door);
+        }
+    }
+
+    /**
+    * This method forgets the descriptions a regenerated passage changes: its own,
+    * the exits of the chambers at both ends and of every passage through the
+    * doors at both ends. They are built again the next time they are asked for.
+    * @param thePassage - The passage that was regenerated.
+    */
+    void refreshPassage(Passage thePassage) {
+        forgetPassage(thePassage);
+        for (Door door : thePassage.getDoors()) {
+            this.chamberExits.remove(((Chamber) door.getSpace(0)).getIdNumber());
+            forgetPassagesThrough(door);
+        }
+    }
+
+    /**
+    * This method forgets the description and exits of a chamber.
+    * @param theChamber - The chamber to forget.
+    */
+    private void forgetChamber(Chamber theChamber) {
+        this.chambersDesc.set(theChamber.getIdNumber() - 1, null);
+        this.chamberExits.remove(theChamber.getIdNumber());
+    }
+
+    /**
+    * This method forgets the description and exits of a passage.
+    * @param thePassage - The passage to forget.
+    */
+    private void forgetPassage(Passage thePassage) {
+        this.passagesDesc.set(thePassage.getIdNumber() - 1, null);
+        this.passageExits.remove(thePassage.getIdNumber());
     }
 
     /**
-    * This method sets the doorMap attribute, by getting it from level.
+    * This method forgets the exits of every passage that goes through a door.
+    * @param theDoor - The door.
     */
-    private void setDoorMap() {
-        this.doorMap = this.theLevel.getDoorMap();
+    private void forgetPassagesThrough(Door theDoor) {
+        for (Space space : theDoor.getSpaces()) {
+            if (space instanceof Passage) {
+                this.passageExits.remove(((Passage) space).getIdNumber());
+            }
+        }
     }
 
     /**
@@ -115,15 +198,21 @@ public class DataFactory implements Serializable {
 
     /**
     * This method gets the description of all the chambers on the floor.
+    * @param pool - The pool to build on, or null to build on the calling thread.
     */
-    private void setChamberDescriptions() {
-        chambersDesc = new ArrayList<String>();
-        chamberExits = new HashMap<Integer, ArrayList<String>>();
-        this.allChambers.forEach((chamber) -> {
-            String currChamber = chamber.getDescription();
-            chamberExits.put(chamber.getIdNumber(), getExitsDescription(chamber));
-            this.chambersDesc.add(currChamber);
+    private void setChamberDescriptions(ForkJoinPool pool) {
+        String[] descriptions = new String[this.allChambers.size()];
+        List<ArrayList<String>> exits = new ArrayList<ArrayList<String>>(Collections.nCopies(descriptions.length, (ArrayList<String>) null));
+        RangeTask.run(pool, descriptions.length, (i) -> {
+            Chamber chamber = this.allChambers.get(i);
+            descriptions[i] = chamber.getDescription();
+            exits.set(i, getExitsDescription(chamber));
         });
+        chambersDesc = new ArrayList<String>(Arrays.asList(descriptions));
+        chamberExits = new HashMap<Integer, ArrayList<String>>();
+        for (int i = 0; i < exits.size(); i++) {
+            chamberExits.put(this.allChambers.get(i).getIdNumber(), exits.get(i));
+        }
     }
 
     /**
@@ -134,14 +223,11 @@ public class DataFactory implements Serializable {
     private ArrayList<String> getExitsDescription(Chamber theChamber) {
         ArrayList<Door> doors = theChamber.getDoors();
         ArrayList<String> allExits = new ArrayList<String>();
-        String chamberExit = "";
         for (int i = 0; i < doors.size(); i++) {
             Door currDoor = doors.get(i);
             Chamber targetChamber = currDoor.getTargets().get(0);
             Passage targetPassage = currDoor.getTargetPassage(targetChamber);
-            chamberExit = "********* Exit " + (i + 1) + " *********\r\n" + currDoor.getDescription() + "\r\n" + "*** Leads to Chamber " + targetChamber.getIdNumber() + " ***";
-            chamberExit = chamberExit.concat("\r\n" + "***** Via Passage " + targetPassage.getIdNumber() + (targetPassage.getIdNumber() < 10 ? " ******" : " *****") + "\r\n" + "***** Enters Door " + targetPassage.getDoors().get(1).getIdNumber() + " ******" + "\r\n\r\n");
-            allExits.add(chamberExit);
+            allExits.add(getExitDescription(i + 1, currDoor, targetChamber.getIdNumber(), targetPassage.getIdNumber(), targetPassage.getDoors().get(1).getIdNumber()));
         }
 
         return allExits;
@@ -155,35 +241,90 @@ public class DataFactory implements Serializable {
     private ArrayList<String> getPassageExitDesc(Passage thePassage) {
         ArrayList<Door> doors = thePassage.getDoors();
         ArrayList<String> allExits = new ArrayList<String>();
-        String passageExit = "";
         for (int i = 0; i < doors.size(); i++) {
             Door currDoor = doors.get(i);
             Chamber targetChamber = currDoor.getTargets().get(0);
             Chamber currChamber = (Chamber) currDoor.getSpace(0);
-            passageExit = "***** Starting Chamber " + currChamber.getIdNumber() + " *****\r\n" + "********* Exit " + (i + 1) + " *********\r\n" + currDoor.getDescription() + "\r\n" + "*** Leads to Chamber " + targetChamber.getIdNumber() + " ***";
-            passageExit = passageExit.concat("\r\n" + "***** Via Passage " + thePassage.getIdNumber() + (thePassage.getIdNumber() < 10 ? " ******" : " *****") + "\r\n" + "***** Enters Door " + thePassage.getDoors().get(1).getIdNumber() + " ******" + "\r\n\r\n");
-            allExits.add(passageExit);
+            allExits.add(getPassageExitDescription(currChamber.getIdNumber(), i + 1, currDoor, targetChamber.getIdNumber(), thePassage.getIdNumber(), thePassage.getDoors().get(1).getIdNumber()));
         }
 
         return allExits;
     }
 
+    /**
+    * This method gets the description of one exit of a passage, which starts
+    * with the chamber the door of the exit is in.
+    * @param chamberId - The id of the chamber the door is in.
+    * @param exitNumber - The number of the exit in the passage.
+    * @param theDoor - The door of the exit.
+    * @param targetId - The id of the chamber the door leads to.
+    * @param passageId - The id of the passage.
+    * @param enterId - The id of the door the passage enters its last chamber by.
+    * @return - The String description of the exit.
+    */
+    static String getPassageExitDescription(int chamberId, int exitNumber, Door theDoor, int targetId, int passageId, int enterId) {
+        return "***** Starting Chamber " + chamberId + " *****\r\n" + getExitDescription(exitNumber, theDoor, targetId, passageId, enterId);
+    }
+
+    /**
+    * This method gets the description of one exit, from the ids of the spaces it
+    * joins, so exits can be described without the spaces being built.
+    * @param exitNumber - The number of the exit in the list it is shown in.
+    * @param theDoor - The door of the exit.
+    * @param targetId - The id of the chamber the door leads to.
+    * @param passageId - The id of the passage the door leads through.
+    * @param enterId - The id of the door the passage enters the target chamber by.
+    * @return - The String description of the exit.
+    */
+    static String getExitDescription(int exitNumber, Door theDoor, int targetId, int passageId, int enterId) {
+        String exit = "********* Exit " + exitNumber + " *********\r\n" + theDoor.getDescription() + "\r\n" + "*** Leads to Chamber " + targetId + " ***";
+        return exit.concat("\r\n" + "***** Via Passage " + passageId + (passageId < 10 ? " ******" : " *****") + "\r\n" + "***** Enters Door " + enterId + " ******" + "\r\n\r\n");
+    }
+
     /**
     * This method gets the description of all the passages on the level.
+    * @param pool - The pool to build on, or null to build on the calling thread.
     */
-    private void setPassageDescriptions() {
-        passagesDesc = new ArrayList<String>();
-        passageExits = new HashMap<Integer, ArrayList<String>>();
-        this.allPassages.forEach((passage) -> {
-            passageExits.put(passage.getIdNumber(), getPassageExitDesc(passage));
-            Chamber chamberOne = (Chamber) passage.getDoor(0).getSpaces().get(0);
-            Chamber chamberTwo = (Chamber) passage.getDoor(1).getSpaces().get(0);
-            String currPassage = "********** Passage " + passage.getIdNumber() + " ";
-            currPassage = (passage.getIdNumber() < 10) ? currPassage.concat("*") : currPassage;
-            currPassage = currPassage.concat("***********\r\n" + "***** Starts from Chamber " + chamberOne.getIdNumber() + " *****\r\n" + passage.getDescription());
-            currPassage = currPassage.concat("******* Ends at Chamber " + chamberTwo.getIdNumber() + " *******\r\n");
-            passagesDesc.add(currPassage);
+    private void setPassageDescriptions(ForkJoinPool pool) {
+        String[] descriptions = new String[this.allPassages.size()];
+        List<ArrayList<String>> exits = new ArrayList<ArrayList<String>>(Collections.nCopies(descriptions.length, (ArrayList<String>) null));
+        RangeTask.run(pool, descriptions.length, (i) -> {
+            Passage passage = this.allPassages.get(i);
+            exits.set(i, getPassageExitDesc(passage));
+            descriptions[i] = getPassageDescription(passage);
         });
+        passagesDesc = new ArrayList<String>(Arrays.asList(descriptions));
+        passageExits = new HashMap<Integer, ArrayList<String>>();
+        for (int i = 0; i < exits.size(); i++) {
+            passageExits.put(this.allPassages.get(i).getIdNumber(), exits.get(i));
+        }
+    }
+
+    /**
+    * This method gets the description of a passage and the chambers it joins.
+    * @param passage - The passage to describe.
+    * @return - The String description of the passage.
+    */
+    private String getPassageDescription(Passage passage) {
+        Chamber chamberOne = (Chamber) passage.getDoor(0).getSpaces().get(0);
+        Chamber chamberTwo = (Chamber) passage.getDoor(1).getSpaces().get(0);
+        return getPassageDescription(passage.getIdNumber(), chamberOne.getIdNumber(), chamberTwo.getIdNumber(), passage.getDescription());
+    }
+
+    /**
+    * This method gets the description of a passage from the ids of the chambers it joins.
+    * @param passageId - The id of the passage.
+    * @param fromId - The id of the chamber the passage starts from.
+    * @param toId - The id of the chamber the passage ends at.
+    * @param description - The description of the passage itself.
+    * @return - The String description of the passage.
+    */
+    static String getPassageDescription(int passageId, int fromId, int toId, String description) {
+        String currPassage = "********** Passage " + passageId + " ";
+        currPassage = (passageId < 10) ? currPassage.concat("*") : currPassage;
+        currPassage = currPassage.concat("***********\r\n" + "***** Starts from Chamber " + fromId + " *****\r\n" + description);
+        currPassage = currPassage.concat("******* Ends at Chamber " + toId + " *******\r\n");
+        return currPassage;
     }
 
     /**
@@ -226,7 +367,12 @@ public class DataFactory implements Serializable {
     * @return - The String decription of the chamber.
     */
     public String getChamberDesc(int index) {
-        return this.chambersDesc.get(index);
+        String desc = this.chambersDesc.get(index);
+        if (desc == null) {
+            desc = this.allChambers.get(index).getDescription();
+            this.chambersDesc.set(index, desc);
+        }
+        return desc;
     }
 
     /**
@@ -235,7 +381,12 @@ public class DataFactory implements Serializable {
     * @return - The String decription of the chpassageamber.
     */
     public String getPassageDesc(int index) {
-        return this.passagesDesc.get(index);
+        String desc = this.passagesDesc.get(index);
+        if (desc == null) {
+            desc = getPassageDescription(this.allPassages.get(index));
+            this.passagesDesc.set(index, desc);
+        }
+        return desc;
     }
 
     /**
@@ -244,7 +395,7 @@ public class DataFactory implements Serializable {
     * @return - An ArrayList of all the chamber exits description.
     */
     public ArrayList<String> getChamberExits(int index) {
-        return this.chamberExits.get(index);
+        return this.chamberExits.computeIfAbsent(index, (id) -> getExitsDescription(this.allChambers.get(id - 1)));
     }
 
     /**
@@ -253,7 +404,7 @@ public class DataFactory implements Serializable {
     * @return - An ArrayList of all the passage exits description.
     */
     public ArrayList<String> getPassageExits(int index) {
-        return this.passageExits.get(index);
+        return this.passageExits.computeIfAbsent(index, (id) -> getPassageExitDesc(this.allPassages.get(id - 1)));
     }
 
 }
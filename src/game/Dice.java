@@ -0,0 +1,130 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*        Dice.java          *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.util.SplittableRandom;
+
+/**
+* This class is the source of all the random rolls used to generate a level.
+* A level gets one Dice from its seed and splits a new Dice off it for every
+* chamber, so the same seed always gives the same level.
+*/
+public class Dice {
+
+    /** The generator the rolls are drawn from. */
+    private final SplittableRandom random;
+
+    /**
+    * This constructor creates a Dice with a random seed.
+    */
+    public Dice() {
+        this(newSeed());
+    }
+
+    /**
+    * This constructor creates a Dice that always rolls the same for the same seed.
+    * @param seed - The seed to roll from.
+    */
+    public Dice(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+    * This constructor wraps a generator split off another Dice.
+    * @param theRandom - The generator to roll from.
+    */
+    private Dice(SplittableRandom theRandom) {
+        this.random = theRandom;
+    }
+
+    /**
+    * This method gets a new random seed.
+    * @return A random long to use as a seed.
+    */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+    * This method splits off a new Dice that rolls independently of this one.
+    * The Dice split off depends only on the seed and how many splits and rolls
+    * were made before it, so it can be handed to another thread safely.
+    * @return A new Dice.
+    */
+    public Dice split() {
+        return new Dice(this.random.split());
+    }
+
+    /**
+    * This method gets an integer between 0 and bound - 1 on random.
+    * @param bound - The number of possible values.
+    * @return An int between 0 and bound - 1.
+    */
+    public int nextInt(int bound) {
+        return this.random.nextInt(bound);
+    }
+
+    /**
+    * This method gets a number between 0 and 1 on random.
+    * @return A double from 0 up to but not including 1.
+    */
+    public double nextDouble() {
+        return this.random.nextDouble();
+    }
+
+    /**
+    * This method rolls a die with the given number of sides.
+    * @param sides - The number of sides on the die.
+    * @return An int between 1 and sides.
+    */
+    public int roll(int sides) {
+        return this.random.nextInt(sides) + 1;
+    }
+
+    /**
+    * This method rolls a four sided die.
+    * @return An int between 1 - 4.
+    */
+    public int d4() {
+        return roll(4);
+    }
+
+    /**
+    * This method rolls a six sided die.
+    * @return An int between 1 - 6.
+    */
+    public int d6() {
+        return roll(6);
+    }
+
+    /**
+    * This method rolls a ten sided die.
+    * @return An int between 1 - 10.
+    */
+    public int d10() {
+        return roll(10);
+    }
+
+    /**
+    * This method rolls a twenty sided die.
+    * @return An int between 1 - 20.
+    */
+    public int d20() {
+        return roll(20);
+    }
+
+    /**
+    * This method rolls a percentile die.
+    * @return An int between 1 - 100.
+    */
+    public int d100() {
+        return roll(100);
+    }
+
+}
@@ -8,9 +8,12 @@
 
 package game;
 
-import dnd.die.Die;
 import dnd.models.Exit;
 import dnd.models.Trap;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.io.Serializable;
@@ -20,8 +23,11 @@ import java.io.Serializable;
 */
 public class Door implements Serializable {
 
+    /** The version of the serialized form, kept from before the class changed so saved levels still load. */
+    private static final long serialVersionUID = -4543397729447616538L;
+
     /** Holds the exit associated with the door. */
-    private Exit exit;
+    private SeededExit exit;
     /** Holds a the trap in the door. */
     private Trap trap;
     /** Boolean representing if the door is trapped. */
@@ -32,24 +38,30 @@ public class Door implements Serializable {
     private boolean archway;
     /** Boolean representing if the door is locked. */
     private boolean locked;
-    /** ArrayList of the spaces around the door. */
-    private ArrayList<Space> spaces;
-    /** The target chamber for the door. */
-    private ArrayList<Chamber> targets;
-    /** A map of targets and the passages to get to them. */
-    private HashMap<Chamber, Passage> targetMap;
+    /** ArrayList of the spaces around the door, saved by the level in its DoorLinks. */
+    private transient ArrayList<Space> spaces;
+    /** The target chamber for the door, saved by the level in its DoorLinks. */
+    private transient ArrayList<Chamber> targets;
+    /** A map of targets and the passages to get to them, saved by the level in its DoorLinks. */
+    private transient HashMap<Chamber, Passage> targetMap;
     /** Holds an id number for door relative to the chamber. */
     private int idNumber;
+    /** The chamber that rolls the exit and state of the door, or null if they were rolled with the door, saved by the level in its DoorLinks. */
+    private transient Chamber owner;
 
     /**
     * This is the defualt constructor for this class.
     */
     public Door() {
-        this.exit = new Exit();
-        this.spaces = new ArrayList<Space>();
-        this.targets = new ArrayList<Chamber>();
-        this.targetMap = new HashMap<Chamber, Passage>();
-        setDoor();
+        this(new Dice());
+    }
+
+    /**
+    * This constructor generates a door with all its rolls taken from the Dice passed to it.
+    * @param dice - The Dice to roll with.
+    */
+    public Door(Dice dice) {
+        this(new SeededExit(dice), dice);
     }
 
     /**
@@ -57,11 +69,141 @@ public class Door implements Serializable {
     * @param theExit - The Exit used to generate the door.
     */
     public Door(Exit theExit) {
-        this.exit = theExit;
+        this(theExit, new Dice());
+    }
+
+    /**
+    * This constructor generates a door according to the Exit passed to it,
+    * with all its rolls taken from the Dice passed to it.
+    * @param theExit - The Exit used to generate the door.
+    * @param dice - The Dice to roll with.
+    */
+    public Door(Exit theExit, Dice dice) {
+        this(new SeededExit(theExit), dice);
+    }
+
+    /**
+    * This constructor generates a door at an exit, with all its rolls taken
+    * from the Dice passed to it.
+    * @param theExit - The exit of the door.
+    * @param dice - The Dice to roll with.
+    */
+    private Door(SeededExit theExit, Dice dice) {
         this.spaces = new ArrayList<Space>();
         this.targets = new ArrayList<Chamber>();
         this.targetMap = new HashMap<Chamber, Passage>();
-        setDoor();
+        setDetails(theExit, dice);
+    }
+
+    /**
+    * This constructor creates a door of a chamber whose exit and state are
+    * rolled by the chamber, with setDetails, the first time they are needed.
+    * @param theOwner - The chamber the door belongs to.
+    * @param id - The id number of the door in the chamber.
+    */
+    Door(Chamber theOwner, int id) {
+        this.spaces = new ArrayList<Space>();
+        this.targets = new ArrayList<Chamber>();
+        this.targetMap = new HashMap<Chamber, Passage>();
+        this.owner = theOwner;
+        setIdNumber(id);
+    }
+
+    /**
+    * This method sets the exit of the door and rolls its state.
+    * @param theExit - The exit of the door.
+    * @param dice - The Dice to roll with.
+    */
+    void setDetails(SeededExit theExit, Dice dice) {
+        this.exit = theExit;
+        setDoor(dice);
+    }
+
+    /**
+    * This method rolls the state of the door again, keeping its exit and where it leads.
+    * @param dice - The Dice to roll with.
+    */
+    void regenerate(Dice dice) {
+        materialize();
+        setDoor(dice);
+    }
+
+    /**
+    * This method makes sure the exit and state of the door are rolled.
+    */
+    private void materialize() {
+        if (this.owner != null) {
+            this.owner.materialize();
+        }
+    }
+
+    /**
+    * This method rolls the exit and state of the door before it is saved, since
+    * a door can be saved before the chamber it belongs to.
+    * @param out - The stream the door is written to.
+    * @throws IOException - If the door could not be written.
+    */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
+    }
+
+    /**
+    * This method loads a door that was saved. A door saved before the level kept
+    * its DoorLinks still has its spaces, targets and owner, and gets them back.
+    * A door saved with a library Exit gets its location and direction from it.
+    * @param in - The stream the door is read from.
+    * @throws IOException - If the door could not be read.
+    * @throws ClassNotFoundException - If a class in the door could not be found.
+    */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        this.exit = SeededExit.of(fields.get("exit", null));
+        this.trap = (Trap) fields.get("trap", null);
+        this.trapped = fields.get("trapped", false);
+        this.open = fields.get("open", false);
+        this.archway = fields.get("archway", false);
+        this.locked = fields.get("locked", false);
+        this.idNumber = fields.get("idNumber", 0);
+        ObjectStreamClass saved = fields.getObjectStreamClass();
+        if (saved.getField("spaces") != null) {
+            Chamber savedOwner = saved.getField("owner") != null ? (Chamber) fields.get("owner", null) : null;
+            setLinks(savedOwner, (ArrayList<Space>) fields.get("spaces", null),
+                    (ArrayList<Chamber>) fields.get("targets", null), (HashMap<Chamber, Passage>) fields.get("targetMap", null));
+        } else {
+            setLinks(null, new ArrayList<Space>(), new ArrayList<Chamber>(), new HashMap<Chamber, Passage>());
+        }
+    }
+
+    /**
+    * This method sets what the door is joined to, when its level is loaded.
+    * @param theOwner - The chamber that rolls the door, or null.
+    * @param theSpaces - The spaces around the door.
+    * @param theTargets - The target chambers of the door.
+    * @param theTargetMap - The passage to every target chamber.
+    */
+    void setLinks(Chamber theOwner, ArrayList<Space> theSpaces, ArrayList<Chamber> theTargets, HashMap<Chamber, Passage> theTargetMap) {
+        this.owner = theOwner;
+        this.spaces = theSpaces;
+        this.targets = theTargets;
+        this.targetMap = theTargetMap;
+    }
+
+    /**
+    * This method gets the chamber that rolls the exit and state of the door.
+    * @return - The chamber, or null if they were rolled with the door.
+    */
+    Chamber getOwner() {
+        return this.owner;
+    }
+
+    /**
+    * This method gets the passage to every target chamber.
+    * @return - The map of targets and the passages to get to them.
+    */
+    HashMap<Chamber, Passage> getTargetMap() {
+        return this.targetMap;
     }
 
     /**
@@ -84,18 +226,14 @@ public class Door implements Serializable {
     /**
     * This method sets the trap attribute of the door.
     * @param flag - A boolean value telling if the trap is to be set or not.
-    * @param roll - An optional int to set the type of trap.
+    * @param dice - The Dice to roll the type of trap with.
     */
-    private void setTrapped(boolean flag, int... roll) {
+    private void setTrapped(boolean flag, Dice dice) {
 
         this.trapped = flag;
         if (flag) {
             this.trap = new Trap();
-            if (roll.length > 0) {
-                this.trap.chooseTrap​(roll[0]);
-            } else {
-                this.trap.chooseTrap​(Die.d20());
-            }
+            this.trap.chooseTrap(dice.d20());
         }
     }
 
@@ -250,6 +388,7 @@ public class Door implements Serializable {
 
         String desc;
 
+        materialize();
         desc = "********** Door **********\r\n";
 
         desc = desc.concat("Location: " + this.exit.getLocation() + "\r\n");
@@ -276,16 +415,17 @@ public class Door implements Serializable {
 
     /**
     * This method randomly sets the attributes of the door.
+    * @param dice - The Dice to roll with.
     */
-    private void setDoor() {
+    private void setDoor(Dice dice) {
 
         boolean flag;
 
-        flag = Die.d10() == 1 ? true : false;
+        flag = dice.d10() == 1 ? true : false;
         setArchway(flag);
-        flag = Die.d20() == 1 ? true : false;
-        setTrapped(flag);
-        flag = Die.d6() == 1 ? true : false;
+        flag = dice.d20() == 1 ? true : false;
+        setTrapped(flag, dice);
+        flag = dice.d6() == 1 ? true : false;
         setLocked(flag);
         flag = isLocked() ? false : true;
         setOpen(flag);
@@ -309,11 +449,13 @@ public class Door implements Serializable {
     }
 
     /**
-    * This method gets the Exit associated with the door.
+    * This method gets the Exit associated with the door. The Exit is built on
+    * every call, and builds and rolls its own Random as it is built.
     * @return An Exit associated with the door.
     */
     public Exit getExit() {
-        return this.exit;
+        materialize();
+        return this.exit.toExit();
     }
 
 
@@ -0,0 +1,163 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      DoorLinks.java       *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+* This class holds what every door of a level is joined to, as numbers, so a
+* level can be saved without following door after door into the chambers and
+* passages they lead to. Doors are numbered in the order of the doors of every
+* chamber, then the doors of every passage that are not in a chamber. A space is
+* numbered i + 1 for the chamber at index i and -(i + 1) for the passage at index i.
+*/
+final class DoorLinks implements Serializable {
+
+    /** The version of the serialized form of the class. */
+    private static final long serialVersionUID = 1L;
+
+    /** The index of the first link of every door, plus the number of links at the end. */
+    private final int[] firstLink;
+    /**
+    * The links of every door: its owner, the number of spaces and the spaces, the
+    * number of targets and the targets, then every target with its passage.
+    */
+    private final int[] links;
+
+    /**
+    * This constructor numbers the links of every door of a level.
+    * @param allChambers - The chambers on the level.
+    * @param allPassages - The passages on the level.
+    */
+    DoorLinks(ArrayList<Chamber> allChambers, ArrayList<Passage> allPassages) {
+        Map<Space, Integer> numbers = new IdentityHashMap<Space, Integer>();
+        for (int i = 0; i < allChambers.size(); i++) {
+            numbers.put(allChambers.get(i), i + 1);
+        }
+        for (int i = 0; i < allPassages.size(); i++) {
+            numbers.put(allPassages.get(i), -(i + 1));
+        }
+
+        ArrayList<Door> doors = allDoors(allChambers, allPassages);
+        this.firstLink = new int[doors.size() + 1];
+        int size = 0;
+        for (int i = 0; i < doors.size(); i++) {
+            Door door = doors.get(i);
+            size += 3 + door.getSpaces().size() + door.getTargets().size() + door.getTargetMap().size() * 2;
+            this.firstLink[i + 1] = size;
+        }
+
+        this.links = new int[size];
+        int next = 0;
+        for (Door door : doors) {
+            this.links[next++] = number(numbers, door.getOwner());
+            this.links[next++] = door.getSpaces().size();
+            for (Space space : door.getSpaces()) {
+                this.links[next++] = number(numbers, space);
+            }
+            this.links[next++] = door.getTargets().size();
+            for (Chamber target : door.getTargets()) {
+                this.links[next++] = number(numbers, target);
+            }
+            for (Map.Entry<Chamber, Passage> entry : door.getTargetMap().entrySet()) {
+                this.links[next++] = number(numbers, entry.getKey());
+                this.links[next++] = number(numbers, entry.getValue());
+            }
+        }
+    }
+
+    /**
+    * This method joins every door of a level that was loaded back to the
+    * chambers and passages it was joined to when the level was saved.
+    * @param allChambers - The chambers on the level.
+    * @param allPassages - The passages on the level.
+    */
+    void restore(ArrayList<Chamber> allChambers, ArrayList<Passage> allPassages) {
+        ArrayList<Door> doors = allDoors(allChambers, allPassages);
+        for (int i = 0; i < doors.size(); i++) {
+            int next = this.firstLink[i];
+            int end = this.firstLink[i + 1];
+
+            Chamber owner = (Chamber) space(allChambers, allPassages, this.links[next++]);
+            ArrayList<Space> spaces = new ArrayList<Space>(this.links[next]);
+            for (int j = this.links[next++]; j > 0; j--) {
+                spaces.add(space(allChambers, allPassages, this.links[next++]));
+            }
+            ArrayList<Chamber> targets = new ArrayList<Chamber>(this.links[next]);
+            for (int j = this.links[next++]; j > 0; j--) {
+                targets.add((Chamber) space(allChambers, allPassages, this.links[next++]));
+            }
+            HashMap<Chamber, Passage> targetMap = new HashMap<Chamber, Passage>();
+            while (next < end) {
+                Chamber target = (Chamber) space(allChambers, allPassages, this.links[next++]);
+                targetMap.put(target, (Passage) space(allChambers, allPassages, this.links[next++]));
+            }
+
+            doors.get(i).setLinks(owner, spaces, targets, targetMap);
+        }
+    }
+
+    /**
+    * This method lists every door of a level in the order they are numbered.
+    * @param allChambers - The chambers on the level.
+    * @param allPassages - The passages on the level.
+    * @return - The doors of the chambers, then the other doors of the passages.
+    */
+    private static ArrayList<Door> allDoors(ArrayList<Chamber> allChambers, ArrayList<Passage> allPassages) {
+        ArrayList<Door> doors = new ArrayList<Door>();
+        Map<Door, Boolean> seen = new IdentityHashMap<Door, Boolean>();
+        for (Chamber chamber : allChambers) {
+            for (Door door : chamber.getDoors()) {
+                if (seen.put(door, Boolean.TRUE) == null) {
+                    doors.add(door);
+                }
+            }
+        }
+        for (Passage passage : allPassages) {
+            for (Door door : passage.getDoors()) {
+                if (seen.put(door, Boolean.TRUE) == null) {
+                    doors.add(door);
+                }
+            }
+        }
+        return doors;
+    }
+
+    /**
+    * This method gets the number of a space.
+    * @param numbers - The number of every space on the level.
+    * @param space - The space, or null.
+    * @return - The number of the space, or 0 if it is null or not on the level.
+    */
+    private static int number(Map<Space, Integer> numbers, Space space) {
+        Integer number = space == null ? null : numbers.get(space);
+        return number == null ? 0 : number;
+    }
+
+    /**
+    * This method gets the space with a number.
+    * @param allChambers - The chambers on the level.
+    * @param allPassages - The passages on the level.
+    * @param number - The number of the space.
+    * @return - The space, or null for 0.
+    */
+    private static Space space(ArrayList<Chamber> allChambers, ArrayList<Passage> allPassages, int number) {
+        if (number > 0) {
+            return allChambers.get(number - 1);
+        } else if (number < 0) {
+            return allPassages.get(-number - 1);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,239 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*   EncounterSampler.java   *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import monsters.Monster;
+import monsters.MonsterCatalog;
+
+/**
+* This class picks monsters that fit a challenge, using the lower and upper
+* bounds every monster carries. A monster fits every challenge from its lower
+* bound to its upper bound, and monsters made for a narrow range of challenges
+* are picked more often than ones that fit almost anything: each is weighted
+* 1 / (upper - lower + 1).
+*
+* The challenges are split into brackets where the same monsters fit, found
+* with the range index of the catalog, and each bracket gets an alias table (Vose's
+* method), so a monster is drawn with one int and one double roll, in constant
+* time and without making any objects. Monsters whose bounds are not numbers
+* are never picked.
+*/
+public final class EncounterSampler {
+
+    /**
+    * The sampler made for each catalog, so levels sharing a catalog share it. A sampler
+    * never points back to its catalog, so the catalog can still be collected.
+    */
+    private static final Map<MonsterCatalog, EncounterSampler> SAMPLERS = new WeakHashMap<MonsterCatalog, EncounterSampler>();
+
+    /** The lowest challenge of every bracket, in order. */
+    private final int[] starts;
+    /** The table of every bracket, null where no monster fits. */
+    private final Bracket[] brackets;
+
+    /**
+    * This constructor reads the bounds of every monster in a catalog and builds
+    * the table of every bracket.
+    * @param theCatalog - The catalog to pick monsters from.
+    */
+    public EncounterSampler(MonsterCatalog theCatalog) {
+        TreeSet<Integer> edges = new TreeSet<Integer>();
+        for (Monster monster : theCatalog.getAll()) {
+            if (monster.hasBounds()) {
+                edges.add(monster.getMinBound());
+                if (monster.getMaxBound() < Integer.MAX_VALUE) {
+                    edges.add(monster.getMaxBound() + 1);
+                }
+            }
+        }
+
+        this.starts = new int[edges.size()];
+        int next = 0;
+        for (int edge : edges) {
+            this.starts[next++] = edge;
+        }
+        this.brackets = new Bracket[this.starts.length];
+        for (int b = 0; b < this.starts.length; b++) {
+            this.brackets[b] = buildBracket(theCatalog.findFitting(this.starts[b]), this.starts[b]);
+        }
+    }
+
+    /**
+    * This method gets the sampler of a catalog, building it the first time the
+    * catalog is asked for. Catalogs never change, so the sampler never goes out of date.
+    * @param theCatalog - The catalog to pick monsters from.
+    * @return - The sampler of the catalog.
+    */
+    public static EncounterSampler of(MonsterCatalog theCatalog) {
+        synchronized (SAMPLERS) {
+            EncounterSampler sampler = SAMPLERS.get(theCatalog);
+            if (sampler == null) {
+                sampler = new EncounterSampler(theCatalog);
+                SAMPLERS.put(theCatalog, sampler);
+            }
+            return sampler;
+        }
+    }
+
+    /**
+    * This method gets the bracket a challenge falls in, to draw many monsters for
+    * the same challenge without looking the bracket up every time.
+    * @param challenge - The challenge.
+    * @return - The bracket, or null if no monster fits the challenge.
+    */
+    public Bracket forChallenge(int challenge) {
+        int index = Arrays.binarySearch(this.starts, challenge);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? null : this.brackets[index];
+    }
+
+    /**
+    * This method draws a monster that fits a challenge.
+    * @param challenge - The challenge.
+    * @param dice - The Dice to roll with.
+    * @return - A Monster, or null if no monster fits the challenge.
+    */
+    public Monster sample(int challenge, Dice dice) {
+        Bracket bracket = forChallenge(challenge);
+        return bracket == null ? null : bracket.draw(dice);
+    }
+
+    /**
+    * This method gets the number of brackets the challenges are split into.
+    * @return - The number of brackets, including ones no monster fits.
+    */
+    public int getBracketCount() {
+        return this.brackets.length;
+    }
+
+    /**
+    * This method builds the alias table of the monsters that fit the challenges
+    * of a bracket, which all fit its lowest challenge.
+    * @param fits - The monsters that fit the bracket.
+    * @param challenge - The lowest challenge of the bracket.
+    * @return - The bracket, or null if no monster fits it.
+    */
+    private static Bracket buildBracket(List<Monster> fits, int challenge) {
+        if (fits.isEmpty()) {
+            return null;
+        }
+
+        int count = fits.size();
+        Monster[] monsters = fits.toArray(new Monster[count]);
+        double[] weights = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            weights[i] = 1.0 / ((double) monsters[i].getMaxBound() - monsters[i].getMinBound() + 1);
+            total += weights[i];
+        }
+        return new Bracket(challenge, monsters, weights, total);
+    }
+
+    /**
+    * This class is the alias table of one bracket. Column i holds monster i with
+    * probability chance[i], and monster alias[i] the rest of the time.
+    */
+    public static final class Bracket {
+
+        /** The lowest challenge of the bracket. */
+        private final int challenge;
+        /** The monsters that fit the bracket. */
+        private final Monster[] monsters;
+        /** The chance of each column giving its own monster. */
+        private final double[] chance;
+        /** The monster each column gives otherwise. */
+        private final int[] alias;
+
+        /**
+        * This constructor builds the alias table with Vose's method.
+        * @param theChallenge - The lowest challenge of the bracket.
+        * @param theMonsters - The monsters that fit the bracket.
+        * @param weights - The weight of every monster.
+        * @param total - The sum of the weights.
+        */
+        private Bracket(int theChallenge, Monster[] theMonsters, double[] weights, double total) {
+            int count = theMonsters.length;
+            this.challenge = theChallenge;
+            this.monsters = theMonsters;
+            this.chance = new double[count];
+            this.alias = new int[count];
+
+            double[] scaled = new double[count];
+            int[] small = new int[count];
+            int[] large = new int[count];
+            int numSmall = 0;
+            int numLarge = 0;
+            for (int i = 0; i < count; i++) {
+                scaled[i] = weights[i] * count / total;
+                if (scaled[i] < 1.0) {
+                    small[numSmall++] = i;
+                } else {
+                    large[numLarge++] = i;
+                }
+            }
+            while (numSmall > 0 && numLarge > 0) {
+                int less = small[--numSmall];
+                int more = large[--numLarge];
+                this.chance[less] = scaled[less];
+                this.alias[less] = more;
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[numSmall++] = more;
+                } else {
+                    large[numLarge++] = more;
+                }
+            }
+            // Whatever is left is 1 give or take rounding.
+            while (numLarge > 0) {
+                int i = large[--numLarge];
+                this.chance[i] = 1.0;
+                this.alias[i] = i;
+            }
+            while (numSmall > 0) {
+                int i = small[--numSmall];
+                this.chance[i] = 1.0;
+                this.alias[i] = i;
+            }
+        }
+
+        /**
+        * This method draws a monster from the bracket.
+        * @param dice - The Dice to roll with.
+        * @return - A Monster.
+        */
+        public Monster draw(Dice dice) {
+            int column = dice.nextInt(this.monsters.length);
+            return this.monsters[dice.nextDouble() < this.chance[column] ? column : this.alias[column]];
+        }
+
+        /**
+        * This method gets the lowest challenge of the bracket.
+        * @return - The challenge.
+        */
+        public int getChallenge() {
+            return this.challenge;
+        }
+
+        /**
+        * This method gets the number of monsters that fit the bracket.
+        * @return - The number of monsters.
+        */
+        public int size() {
+            return this.monsters.length;
+        }
+    }
+
+}
@@ -10,10 +10,18 @@ package game;
 
 import dnd.models.Treasure;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import monsters.Monster;
-import monsters.DBConnection;
+import monsters.MonsterCatalog;
+import monsters.SharedCatalog;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
@@ -21,47 +29,193 @@ import java.io.Serializable;
 */
 public class Level implements Serializable {
 
+    /** The version of the serialized form, kept from before the class changed so saved levels still load. */
+    private static final long serialVersionUID = -5260859662998770741L;
+
+    /** The number of chambers generated when no count is given. */
+    public static final int DEFAULT_CHAMBERS = 5;
+    /** The number of doors in a chamber that must lead to different chambers. */
+    private static final int DISTINCT_TARGETS = 4;
+
     /** An ArrayList to hold all the chambers. */
     private ArrayList<Chamber> allChambers;
     /** An ArrayList to hold all the Passages. */
     private ArrayList<Passage> allPassages;
-    /** A map of all the doors and their target chambers. */
+    /** A map of all the doors and their target chambers, filled the first time it is asked for. */
     private HashMap<Door, ArrayList<Chamber>> doorMap;
-    /** An Arraylist of current targets. */
-    private ArrayList<Chamber> currTargets;
     /** The current DataFactory. */
     private DataFactory print;
-    /** The list of all the monsters. */
+    /** How the chambers are joined by passages, as primitive arrays. */
+    private LevelGraph graph;
+    /** The catalog of all the monsters. */
+    private MonsterCatalog catalog;
+    /** The seed the level is generated from. */
+    private long seed;
+    /** The Dice all the rolls on the level are split off from. */
+    private transient Dice dice;
+    /** Boolean representing if every chamber must be reachable from every other chamber. */
+    private boolean connected;
+    /** Boolean representing if what is in each chamber is rolled the first time it is needed. */
+    private boolean lazy;
+    /** The challenge the monsters are picked for, or 0 to pick any monster. */
+    private int challenge;
+    /** The monsters that fit the challenge, found again when the level is loaded. */
+    private transient EncounterSampler.Bracket encounters;
+    /** The monsters of a level saved before it had a catalog, only read to build its catalog. */
     private ArrayList<Monster> allMonsters;
+    /** What every door is joined to, only set while the level is saved or loaded. */
+    private DoorLinks links;
 
     /**
     * Constructor for Level.
     */
     public Level() {
+        this(Dice.newSeed());
+    }
+
+    /**
+    * This constructor creates a level that is always generated the same for the same seed.
+    * @param theSeed - The seed to generate the level from.
+    */
+    public Level(long theSeed) {
+        this(theSeed, SharedCatalog.get());
+    }
+
+    /**
+    * This constructor creates a level that picks its monsters from the list passed
+    * to it instead of loading them from the database.
+    * @param theSeed - The seed to generate the level from.
+    * @param monsters - The list of all the monsters.
+    */
+    public Level(long theSeed, ArrayList<Monster> monsters) {
+        this(theSeed, new MonsterCatalog(monsters));
+    }
+
+    /**
+    * This constructor creates a level that picks its monsters from a catalog. The
+    * catalog is not copied, so every level made from one catalog shares it.
+    * @param theSeed - The seed to generate the level from.
+    * @param theCatalog - The catalog of all the monsters.
+    */
+    public Level(long theSeed, MonsterCatalog theCatalog) {
         this.allChambers = new ArrayList<Chamber>();
         this.allPassages = new ArrayList<Passage>();
-        this.allMonsters = new ArrayList<Monster>();
-        this.doorMap = new HashMap<Door, ArrayList<Chamber>>();
-        getMonsters();
+        this.catalog = theCatalog;
+        this.doorMap = new LinkedHashMap<Door, ArrayList<Chamber>>();
+        this.seed = theSeed;
+        this.dice = new Dice(theSeed);
+    }
+
+    /**
+    * This method gets the seed the level is generated from.
+    * @return - The seed of the level.
+    */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+    * This method sets if the level is generated so every chamber can be reached
+    * from every other chamber. It must be set before the level is generated.
+    * @param flag - True if the level must be connected.
+    */
+    public void setConnected(boolean flag) {
+        this.connected = flag;
+    }
+
+    /**
+    * This method tells if the level is set to be generated so every chamber can be
+    * reached. It says nothing about whether a level is connected; LevelAnalysis does that.
+    * @return - True if the level is generated connected.
+    */
+    public boolean requiresConnected() {
+        return this.connected;
+    }
+
+    /**
+    * This method sets if what is in each chamber, its contents, exits and doors,
+    * is only rolled the first time it is looked at. The level is the same either
+    * way, but a lazy level costs little to generate no matter how many chambers
+    * it has. It must be set before the level is generated.
+    * @param flag - True if the chambers are rolled the first time they are needed.
+    */
+    public void setLazy(boolean flag) {
+        this.lazy = flag;
+    }
+
+    /**
+    * This method tells if what is in each chamber is rolled the first time it is needed.
+    * @return - True if the level is lazy.
+    */
+    public boolean isLazy() {
+        return this.lazy;
+    }
+
+    /**
+    * This method gets the Dice used for rolls made after the level is generated.
+    * Dice are not saved with a level, so a loaded level gets a new one.
+    * @return - The Dice of the level.
+    */
+    private Dice getDice() {
+        if (this.dice == null) {
+            this.dice = new Dice();
+        }
+        return this.dice;
+    }
+
+    /**
+    * This method sets the challenge the monsters on the level are picked for. A
+    * monster fits every challenge from its lower bound to its upper bound. If no
+    * monster fits the challenge, or it is 0, any monster can be picked.
+    * @param theChallenge - The challenge, or 0 for any monster.
+    */
+    public void setChallenge(int theChallenge) {
+        this.challenge = theChallenge;
+        findEncounters();
     }
 
     /**
-    * This method gets all teh monsters from the database and stores them in allMonsters.
+    * This method gets the challenge the monsters on the level are picked for.
+    * @return - The challenge, or 0 if any monster can be picked.
     */
-    private void getMonsters() {
-        DBConnection c = new DBConnection();
-        this.allMonsters = c.getAllMonsters();
+    public int getChallenge() {
+        return this.challenge;
     }
 
     /**
     * This method gets a random omnster from all the monsters.
-    * @return - A random Monster.
+    * @return - A random Monster, or null if there are no monsters.
     */
     public Monster getRandMonster() {
+        return getRandMonster(getDice());
+    }
 
-        Random randNum = new Random();
-        int index = randNum.nextInt(this.allMonsters.size());
-        return this.allMonsters.get(index);
+    /**
+    * This method gets a random monster from all the monsters, or from the monsters
+    * that fit the challenge of the level if it has one. There are no monsters
+    * when they could not be loaded from the database, and the level is made without them.
+    * @param theDice - The Dice to roll with.
+    * @return - A random Monster, or null if there are no monsters.
+    */
+    Monster getRandMonster(Dice theDice) {
+        return getMonsterPicker().apply(theDice);
+    }
+
+    /**
+    * This method gets what picks a random monster from the catalog the level has
+    * now, or from the monsters in it that fit the challenge of the level. A chamber
+    * that rolls its contents later keeps it, so its monsters come from the same
+    * catalog whenever they are rolled, even after the catalog is changed.
+    * @return - What picks a random Monster with a Dice, or null if there are no monsters.
+    */
+    Function<Dice, Monster> getMonsterPicker() {
+
+        EncounterSampler.Bracket bracket = this.encounters;
+        if (bracket != null) {
+            return bracket::draw;
+        }
+        MonsterCatalog theCatalog = this.catalog;
+        return (dice) -> theCatalog.size() == 0 ? null : theCatalog.get(dice.nextInt(theCatalog.size()));
 
     }
 
@@ -69,8 +223,74 @@ public class Level implements Serializable {
     * This method gets the list of all the monsters.
     * @return - The List of all the Monsters.
     */
-    public ArrayList<Monster> getAllMonsters() {
-        return this.allMonsters;
+    public List<Monster> getAllMonsters() {
+        return this.catalog.getAll();
+    }
+
+    /**
+    * This method gets the catalog of all the monsters, to look monsters up by name.
+    * @return - The catalog of the monsters.
+    */
+    public MonsterCatalog getCatalog() {
+        return this.catalog;
+    }
+
+    /**
+    * This method sets the catalog of all the monsters, when a monster has been
+    * added to it or it has been loaded again. Monsters already in the level are kept.
+    * @param theCatalog - The catalog of the monsters.
+    */
+    public void setCatalog(MonsterCatalog theCatalog) {
+        this.catalog = theCatalog;
+        findEncounters();
+    }
+
+    /**
+    * This method finds the monsters that fit the challenge of the level, once,
+    * so picking a monster costs the same however many monsters there are.
+    */
+    private void findEncounters() {
+        if (this.challenge == 0) {
+            this.encounters = null;
+        } else {
+            this.encounters = EncounterSampler.of(this.catalog).forChallenge(this.challenge);
+        }
+    }
+
+    /**
+    * This method saves the level. What the doors are joined to is saved as numbers
+    * in DoorLinks instead of in the doors, so saving does not follow the doors from
+    * chamber to chamber and run out of stack on a large level.
+    * @param out - The stream the level is written to.
+    * @throws IOException - If the level could not be written.
+    */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        this.links = new DoorLinks(this.allChambers, this.allPassages);
+        try {
+            out.defaultWriteObject();
+        } finally {
+            this.links = null;
+        }
+    }
+
+    /**
+    * This method loads a level that was saved, and finds the monsters that fit its challenge again.
+    * Levels saved with DoorLinks get their doors joined back to their chambers and passages.
+    * @param in - The stream the level is read from.
+    * @throws IOException - If the level could not be read.
+    * @throws ClassNotFoundException - If a class in the level could not be found.
+    */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (this.links != null) {
+            this.links.restore(this.allChambers, this.allPassages);
+            this.links = null;
+        }
+        if (this.catalog == null) {
+            this.catalog = new MonsterCatalog(this.allMonsters);
+            this.allMonsters = null;
+        }
+        findEncounters();
     }
 
     /**
@@ -78,10 +298,105 @@ public class Level implements Serializable {
     * complete level and then print it out.
     */
     public void generateLevel() {
-        generateChambers();
-        joinChambers();
+        generateLevel(DEFAULT_CHAMBERS);
+    }
+
+    /**
+    * This method generates a complete level with the given number of
+    * chambers and then prints it out.
+    * @param numChambers - The number of chambers on the level, at least 2.
+    */
+    public void generateLevel(int numChambers) {
+        generateLevel(numChambers, null);
+    }
+
+    /**
+    * This method generates a complete level with the given number of chambers,
+    * building the chambers, the passages and their descriptions in parallel on
+    * the pool passed to it. Every chamber rolls with its own Dice, so the level
+    * is the same as the one generated without a pool from the same seed.
+    * @param numChambers - The number of chambers on the level, at least 2.
+    * @param pool - The pool to generate on, or null to generate on the calling thread.
+    */
+    public void generateLevel(int numChambers, ForkJoinPool pool) {
+        if (numChambers < 2) {
+            throw new IllegalArgumentException("A level needs at least 2 chambers, got " + numChambers);
+        }
+        Dice[] chamberDice = splitDice(numChambers);
+        generateChambers(chamberDice, pool);
+        joinChambers(chamberDice, pool);
         this.print = new DataFactory(this);
-        this.print.generateLevel();
+        this.print.generateLevel(pool);
+    }
+
+    /**
+    * This method generates a level with the given number of chambers without
+    * keeping it, handing every chamber to the sink followed by the passages
+    * leading out of it. Only a batch of chambers is held at once, so the size of
+    * the level is not limited by memory. Each chamber and passage is described as
+    * it would be by generateLevel from the same seed, except that a passage only
+    * lists the exit it starts from. The chambers and passages of this level are
+    * left untouched.
+    * @param numChambers - The number of chambers on the level, at least 2.
+    * @param sink - The sink to hand the chambers and passages to.
+    * @param pool - The pool to generate each batch on, or null to generate on the calling thread.
+    * @throws IOException - If the sink could not write the level.
+    */
+    public void streamLevel(int numChambers, LevelSink sink, ForkJoinPool pool) throws IOException {
+        streamLevel(numChambers, LevelStream.DEFAULT_BATCH_SIZE, sink, pool);
+    }
+
+    /**
+    * This method streams a level, generating the given number of chambers in each batch.
+    * @param numChambers - The number of chambers on the level, at least 2.
+    * @param batchSize - The number of chambers generated in a batch.
+    * @param sink - The sink to hand the chambers and passages to.
+    * @param pool - The pool to generate each batch on, or null to generate on the calling thread.
+    * @throws IOException - If the sink could not write the level.
+    */
+    public void streamLevel(int numChambers, int batchSize, LevelSink sink, ForkJoinPool pool) throws IOException {
+        if (numChambers < 2) {
+            throw new IllegalArgumentException("A level needs at least 2 chambers, got " + numChambers);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("A batch needs at least 1 chamber, got " + batchSize);
+        }
+        new LevelStream(this, numChambers, batchSize).generate(sink, pool);
+    }
+
+    /**
+    * This method rolls the contents, exits and state of the doors of a chamber
+    * again, keeping its shape, its id and where its doors lead. Only the
+    * descriptions the chamber shows up in are built again.
+    * @param index - The index of the chamber to regenerate.
+    */
+    public void regenerateChamber(int index) {
+        Chamber chamber = this.allChambers.get(index);
+        chamber.regenerate(getDice().split());
+        if (this.print != null) {
+            this.print.refreshChamber(chamber);
+        }
+    }
+
+    /**
+    * This method generates a passage again, leaving it without monsters or
+    * treasure, and rolls the state of its doors again with a Dice split off the
+    * level's Dice. A passage has no rolled contents of its own, so its sections
+    * come out the same and the doors are all that changes. Its id and the
+    * chambers it joins stay the same. Only the descriptions the passage and its
+    * doors show up in are built again.
+    * @param index - The index of the passage to regenerate.
+    */
+    public void regeneratePassage(int index) {
+        Passage passage = this.allPassages.get(index);
+        Dice passageDice = getDice().split();
+        passage.regenerate();
+        for (Door door : passage.getDoors()) {
+            door.regenerate(passageDice);
+        }
+        if (this.print != null) {
+            this.print.refreshPassage(passage);
+        }
     }
 
     /**
@@ -145,8 +460,7 @@ public class Level implements Serializable {
     */
     public void addMonsterInPassage(Monster theMonster, int index) {
         Passage currPassage = this.allPassages.get(index);
-        Random randNum = new Random();
-        int sectionNum = randNum.nextInt(currPassage.getSections().size());
+        int sectionNum = getDice().nextInt(currPassage.getSections().size());
         currPassage.addMonsterToSection(sectionNum, theMonster);
 
     }
@@ -170,9 +484,15 @@ public class Level implements Serializable {
 
     /**
     * This method gets the hashmap that maps doors to their targer chambers.
+    * The map is filled from the chambers the first time it is asked for.
     * @return A HashMap of doors and arraylists of chambers.
     */
     public HashMap<Door, ArrayList<Chamber>> getDoorMap() {
+        if (this.doorMap.isEmpty()) {
+            this.allChambers.forEach((chamber) -> {
+                chamber.getDoors().forEach((door) -> this.doorMap.put(door, door.getTargets()));
+            });
+        }
         return this.doorMap;
     }
 
@@ -193,136 +513,269 @@ public class Level implements Serializable {
     }
 
     /**
-    * This method generates five chambers and adds them to list of chambers.
+    * This method splits a Dice off the level's Dice for every chamber. Each
+    * chamber, its doors and the passages leading out of it are rolled with
+    * its own Dice.
+    * @param numChambers - The number of chambers on the level.
+    * @return - An array with a Dice for every chamber.
     */
-    private void generateChambers() {
-        for (int i = 0; i < 5; i++) {
-            Chamber theChamber = new Chamber(this);
-            addChambers(theChamber);
+    private Dice[] splitDice(int numChambers) {
+        Dice[] chamberDice = new Dice[numChambers];
+        for (int i = 0; i < numChambers; i++) {
+            chamberDice[i] = this.dice.split();
         }
-        setChambers();
+        return chamberDice;
     }
 
     /**
-    * This method sets the attributes of the chambers.
+    * This method generates the chambers, adds them to list of chambers and sets
+    * the targets of their doors. Chamber ids are set to their place in the list.
+    * A connected level sets its targets one chamber at a time, in order, since
+    * each chamber's targets depend on which chambers are already joined.
+    * @param chamberDice - The Dice of every chamber to generate.
+    * @param pool - The pool to generate on, or null to generate on the calling thread.
     */
-    private void setChambers() {
-        this.allChambers.forEach((chamber) -> setDoors(chamber));
+    private void generateChambers(Dice[] chamberDice, ForkJoinPool pool) {
+        Chamber[] chambers = new Chamber[chamberDice.length];
+        RangeTask.run(pool, chambers.length, (i) -> {
+            chambers[i] = new Chamber(this, chamberDice[i], this.lazy);
+            chambers[i].setIdNumber(i + 1);
+        });
+        this.allChambers.addAll(Arrays.asList(chambers));
+        if (this.connected) {
+            UnionFind joined = new UnionFind(chambers.length);
+            for (int i = 0; i < chambers.length; i++) {
+                setDoors(chambers[i], i, chamberDice[i], joined);
+            }
+        } else {
+            RangeTask.run(pool, chambers.length, (i) -> setDoors(chambers[i], i, chamberDice[i], null));
+        }
     }
 
     /**
     * This method sets the attributes of each door in the chamber passed to it.
     * @param theChamber - The chamber whos doors need to be set.
+    * @param index - The index of the chamber in the list of chambers.
+    * @param theDice - The Dice of the chamber.
+    * @param joined - The chambers joined so far, or null if the level need not be connected.
     */
-    private void setDoors(Chamber theChamber) {
-        this.currTargets = new ArrayList<Chamber>();
+    private void setDoors(Chamber theChamber, int index, Dice theDice, UnionFind joined) {
+        ArrayList<Door> doors = theChamber.getDoors();
+        int[] targets = pickTargets(index, doors.size(), this.allChambers.size(), theDice, joined);
 
-        for (int i = 0; i < theChamber.getDoors().size(); i++) {
-            Door currDoor = theChamber.getDoors().get(i);
-            setTargets(currDoor, (i + 1));
+        for (int i = 0; i < doors.size(); i++) {
+            setTargets(doors.get(i), this.allChambers.get(targets[i]));
         }
     }
 
     /**
-    * This method sets the target chambers on random for each door passed to it.
-    * @param theDoor - The door to set the targets of.
-    * @param doorNum - The door number in the chamber.
+    * This method picks the chamber every door of a chamber leads to.
+    * The first few doors lead to different chambers, which are drawn with a
+    * partial Fisher-Yates shuffle over the other chambers so every door costs
+    * constant time no matter how many chambers are on the level.
+    * When the chambers before this one are all joined and this one is not yet
+    * joined to them, its first door is sent to one of them. Every chamber has at
+    * least one door, so once the last chamber's doors are picked the level is connected.
+    * @param index - The index of the chamber.
+    * @param numDoors - The number of doors in the chamber.
+    * @param numChambers - The number of chambers on the level.
+    * @param theDice - The Dice of the chamber.
+    * @param joined - The chambers joined so far, or null if the level need not be connected.
+    * @return - The index of the chamber every door leads to.
     */
-    private void setTargets(Door theDoor, int doorNum) {
-
-        Chamber theChamber = (Chamber) theDoor.getSpace(0);
-        Chamber targetChamber = randChamber(theChamber, doorNum);
-        this.currTargets.add(targetChamber);
+    static int[] pickTargets(int index, int numDoors, int numChambers, Dice theDice, UnionFind joined) {
+        int numOthers = numChambers - 1;
+        int numDistinct = Math.min(DISTINCT_TARGETS, numOthers);
+        int[] swapped = new int[numDistinct * 2];
+        int numSwapped = 0;
+        boolean mustJoin = joined != null && index > 0 && !joined.connected(index, 0);
+        int[] targets = new int[numDoors];
+
+        for (int i = 0; i < numDoors; i++) {
+            int pick;
+            if (i < numDistinct) {
+                int slot = i == 0 && mustJoin ? theDice.nextInt(index) : i + theDice.nextInt(numOthers - i);
+                pick = shuffledAt(swapped, numSwapped, slot);
+                swapped[numSwapped * 2] = slot;
+                swapped[numSwapped * 2 + 1] = shuffledAt(swapped, numSwapped, i);
+                numSwapped++;
+            } else {
+                pick = theDice.nextInt(numOthers);
+            }
+            targets[i] = pick < index ? pick : pick + 1;
+            if (joined != null) {
+                joined.union(index, targets[i]);
+            }
+        }
 
-        theDoor.setTargets(targetChamber);
-        doorMap.put(theDoor, theDoor.getTargets());
+        return targets;
     }
 
     /**
-    * This method returns a random chamber which is different from
-    * the chambers already selected of current chamber.
-    * @param theChamber - The chamber which shouldnt be returned.
-    * @param doorNum - The door number in the chamber.
-    * @return a random Chamber
+    * This method gets the value at a slot of the partially shuffled list of
+    * other chambers. Slots that were never swapped still hold their own index.
+    * @param swapped - Pairs of swapped slots and the values they now hold.
+    * @param numSwapped - The number of pairs in use.
+    * @param slot - The slot to look up.
+    * @return The value currently held by the slot.
     */
-    private Chamber randChamber(Chamber theChamber, int doorNum) {
-        Chamber currChamber = null;
-        boolean found = false;
-
-        while (!found) {
-            currChamber = this.allChambers.get(die5());
-            if ((theChamber != currChamber && !this.currTargets.contains(currChamber)) || (doorNum > 4 && theChamber != currChamber)) {
-                found = true;
+    private static int shuffledAt(int[] swapped, int numSwapped, int slot) {
+        for (int i = numSwapped - 1; i >= 0; i--) {
+            if (swapped[i * 2] == slot) {
+                return swapped[i * 2 + 1];
             }
         }
-        return currChamber;
+        return slot;
     }
 
     /**
-    * This method joins all the chambers using passages.
+    * This method sets the target chamber of the door passed to it.
+    * @param theDoor - The door to set the targets of.
+    * @param targetChamber - The chamber the door leads to.
     */
-    private void joinChambers() {
-
-        this.doorMap.forEach((door, chambers) -> generatePassages(door, chambers));
-
+    private void setTargets(Door theDoor, Chamber targetChamber) {
+        theDoor.setTargets(targetChamber);
     }
 
     /**
-    * This methdo generates a passage for a Door -> target relationship.
-    * @param theDoor - The door the passage needs to start from.
-    * @param targets - The List of chambers the passages need to lead to.
+    * This method joins all the chambers using passages. The passages leading out
+    * of each chamber are built first. Then the passages are sorted by the chamber
+    * they lead to, so each chamber attaches its incoming passages to its doors in
+    * the same order no matter which thread built them.
+    * @param chamberDice - The Dice of every chamber.
+    * @param pool - The pool to generate on, or null to generate on the calling thread.
     */
-    private void generatePassages(Door theDoor, ArrayList<Chamber> targets) {
+    private void joinChambers(Dice[] chamberDice, ForkJoinPool pool) {
+
+        int numChambers = this.allChambers.size();
+        int[] firstPassage = new int[numChambers + 1];
+        for (int i = 0; i < numChambers; i++) {
+            firstPassage[i + 1] = firstPassage[i] + countTargets(this.allChambers.get(i));
+        }
 
-        targets.forEach((chamber) -> {
-            Passage thePassage = new Passage();
-            addPassage(thePassage);
-            theDoor.addSpace(thePassage);
-            theDoor.setTargetMap(chamber, thePassage);
-            Door targetDoor = randDoor(chamber);
-            targetDoor.addSpace(thePassage);
+        int numPassages = firstPassage[numChambers];
+        Passage[] passages = new Passage[numPassages];
+        int[] fromDoors = new int[numPassages];
+        Door[] targetDoors = new Door[numPassages];
+        int[] targetChambers = new int[numPassages];
+        RangeTask.run(pool, numChambers, (i) -> {
+            generatePassages(this.allChambers.get(i), firstPassage[i], passages, fromDoors, targetDoors, targetChambers, chamberDice[i]);
         });
 
+        int[] firstEntering = new int[numChambers + 1];
+        for (int i = 0; i < numPassages; i++) {
+            firstEntering[targetChambers[i] + 1]++;
+        }
+        for (int i = 0; i < numChambers; i++) {
+            firstEntering[i + 1] += firstEntering[i];
+        }
+        int[] entering = new int[numPassages];
+        int[] nextEntering = Arrays.copyOf(firstEntering, numChambers);
+        for (int i = 0; i < numPassages; i++) {
+            entering[nextEntering[targetChambers[i]]++] = i;
+        }
+        RangeTask.run(pool, numChambers, (i) -> {
+            for (int j = firstEntering[i]; j < firstEntering[i + 1]; j++) {
+                targetDoors[entering[j]].addSpace(passages[entering[j]]);
+            }
+        });
+
+        this.allPassages.addAll(Arrays.asList(passages));
+        setGraph(firstPassage, fromDoors, targetChambers, targetDoors);
+
     }
 
-    private Door randDoor(Chamber theChamber) {
-        Random rand = new Random();
+    /**
+    * This method builds the graph of the level from the two ends of every passage.
+    * @param firstPassage - The index of the first passage leading out of every chamber.
+    * @param fromDoors - The door each passage leads out of.
+    * @param targetChambers - The chamber each passage leads to.
+    * @param targetDoors - The door each passage enters.
+    */
+    private void setGraph(int[] firstPassage, int[] fromDoors, int[] targetChambers, Door[] targetDoors) {
+        int numChambers = firstPassage.length - 1;
+        int[] fromChambers = new int[targetChambers.length];
+        int[] toDoors = new int[targetChambers.length];
 
-        int numDoor = theChamber.getDoors().size();
-        int doorChosen = rand.nextInt(numDoor);
+        for (int i = 0; i < numChambers; i++) {
+            Arrays.fill(fromChambers, firstPassage[i], firstPassage[i + 1], i);
+        }
+        for (int i = 0; i < toDoors.length; i++) {
+            toDoors[i] = targetDoors[i].getIdNumber() - 1;
+        }
 
-        return theChamber.getDoors().get(doorChosen);
+        this.graph = new LevelGraph(numChambers, fromChambers, fromDoors, targetChambers, toDoors);
+    }
+
+    /**
+    * This method gets how the chambers of the level are joined by passages.
+    * Levels saved before the graph was kept get it built from their chambers.
+    * @return - The graph of the level.
+    */
+    public LevelGraph getGraph() {
+        if (this.graph == null) {
+            this.graph = LevelGraph.fromChambers(this.allChambers, this.allPassages.size());
+        }
+        return this.graph;
     }
 
     /**
-    * This method adds a passage to the list of all the passages.
-    * @param thePassage - The Passage to add.
+    * This method counts the passages that lead out of a chamber.
+    * @param theChamber - The chamber to count the passages of.
+    * @return - The number of door targets in the chamber.
     */
-    private void addPassage(Passage thePassage) {
-        this.allPassages.add(thePassage);
+    private int countTargets(Chamber theChamber) {
+        int count = 0;
+        for (Door door : theChamber.getDoors()) {
+            count += door.getTargets().size();
+        }
+        return count;
     }
 
     /**
-    * This method gets an integer between 0 - 4 on random.
-    * @return An int between 0 - 4.
+    * This methdo generates the passages for every Door -> target relationship of
+    * a chamber and picks the door each passage enters the target chamber by.
+    * @param theChamber - The chamber the passages need to start from.
+    * @param first - The index of the first passage of the chamber.
+    * @param passages - The array to put the passages in.
+    * @param fromDoors - The array to put the index of the door each passage leads out of in.
+    * @param targetDoors - The array to put the door each passage enters in.
+    * @param targetChambers - The array to put the index of the chamber each passage enters in.
+    * @param theDice - The Dice of the chamber.
     */
-    private int die5() {
+    private void generatePassages(Chamber theChamber, int first, Passage[] passages, int[] fromDoors, Door[] targetDoors, int[] targetChambers, Dice theDice) {
 
-        Random die5 = new Random();
+        int index = first;
 
-        int num = die5.nextInt(5);
+        for (int i = 0; i < theChamber.getDoors().size(); i++) {
+            Door theDoor = theChamber.getDoors().get(i);
+            for (Chamber chamber : theDoor.getTargets()) {
+                Passage thePassage = new Passage();
+                theDoor.addSpace(thePassage);
+                theDoor.setTargetMap(chamber, thePassage);
+                passages[index] = thePassage;
+                fromDoors[index] = i;
+                targetDoors[index] = randDoor(chamber, theDice);
+                targetChambers[index] = chamber.getIdNumber() - 1;
+                index++;
+            }
+        }
 
-        return num;
     }
 
     /**
-    * This method adds the chamber passed to it, to the list of all the chambers.
-    * @param theChamber - The Chamber to be added to all Chambers.
+    * This method picks one of the doors of a chamber on random.
+    * @param theChamber - The chamber to pick a door from.
+    * @param theDice - The Dice to roll with.
+    * @return - A random Door of the chamber.
     */
-    private void addChambers(Chamber theChamber) {
-        this.allChambers.add(theChamber);
-    }
+    private Door randDoor(Chamber theChamber, Dice theDice) {
 
+        int numDoor = theChamber.getDoors().size();
+        int doorChosen = theDice.nextInt(numDoor);
+
+        return theChamber.getDoors().get(doorChosen);
+    }
 
     /**
     * This method gets all the monsters in a chamber.
@@ -0,0 +1,285 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*     LevelAnalysis.java    *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.util.Arrays;
+
+/**
+* This class answers questions about how the chambers of a level are joined:
+* how far chambers are from each other, the shortest route between them, which
+* chambers can reach each other and which chambers the level falls apart without.
+* Every question is answered by a walk over the LevelGraph in linear time.
+*/
+public class LevelAnalysis {
+
+    /** The graph of the level. */
+    private final LevelGraph graph;
+    /** The component of every chamber, worked out the first time it is asked for. */
+    private int[] components;
+    /** The number of components. */
+    private int numComponents;
+
+    /**
+    * This is the constructor for this class.
+    * @param theGraph - The graph of the level to analyse.
+    */
+    public LevelAnalysis(LevelGraph theGraph) {
+        this.graph = theGraph;
+    }
+
+    /**
+    * This method gets the number of passages on the shortest route from a
+    * chamber to every other chamber.
+    * @param source - The index of the chamber to start from.
+    * @return - The distance to every chamber, -1 for chambers that cannot be reached.
+    */
+    public int[] getDistances(int source) {
+        int[] distances = new int[this.graph.getNumChambers()];
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int chamber = queue[head++];
+            for (int e = this.graph.getFirstEdge(chamber); e < this.graph.getEndEdge(chamber); e++) {
+                int neighbour = this.graph.getNeighbour(e);
+                if (distances[neighbour] < 0) {
+                    distances[neighbour] = distances[chamber] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+    * This method gets the number of passages on the shortest route between two chambers.
+    * @param from - The index of the chamber to start from.
+    * @param to - The index of the chamber to end at.
+    * @return - The number of passages, or -1 if there is no route.
+    */
+    public int getRouteLength(int from, int to) {
+        int[] route = getRoute(from, to);
+        return route == null ? -1 : route.length;
+    }
+
+    /**
+    * This method gets the shortest route between two chambers. Each step of the
+    * route is an edge of the LevelGraph, which gives the door it leaves by, the
+    * passage it goes through and the door it enters the next chamber by.
+    * @param from - The index of the chamber to start from.
+    * @param to - The index of the chamber to end at.
+    * @return - The edges of the route in order, or null if there is no route.
+    */
+    public int[] getRoute(int from, int to) {
+        int numChambers = this.graph.getNumChambers();
+        int[] previous = new int[numChambers];
+        int[] previousEdge = new int[numChambers];
+        int[] queue = new int[numChambers];
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(previous, -1);
+        previous[from] = from;
+        queue[tail++] = from;
+        while (head < tail && previous[to] < 0) {
+            int chamber = queue[head++];
+            for (int e = this.graph.getFirstEdge(chamber); e < this.graph.getEndEdge(chamber); e++) {
+                int neighbour = this.graph.getNeighbour(e);
+                if (previous[neighbour] < 0) {
+                    previous[neighbour] = chamber;
+                    previousEdge[neighbour] = e;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+
+        if (previous[to] < 0) {
+            return null;
+        }
+        int length = 0;
+        for (int chamber = to; chamber != from; chamber = previous[chamber]) {
+            length++;
+        }
+        int[] route = new int[length];
+        for (int chamber = to; chamber != from; chamber = previous[chamber]) {
+            route[--length] = previousEdge[chamber];
+        }
+        return route;
+    }
+
+    /**
+    * This method describes the shortest route between two chambers, step by step.
+    * @param from - The index of the chamber to start from.
+    * @param to - The index of the chamber to end at.
+    * @return - A String with the route, using the ids shown in the chamber descriptions.
+    */
+    public String getRouteDescription(int from, int to) {
+        int[] route = getRoute(from, to);
+
+        if (route == null) {
+            return "There is no route from Chamber " + (from + 1) + " to Chamber " + (to + 1) + "\r\n";
+        }
+
+        StringBuilder desc = new StringBuilder();
+        desc.append("Route from Chamber " + (from + 1) + " to Chamber " + (to + 1) + ": " + route.length + " passage(s)\r\n");
+        int chamber = from;
+        for (int e : route) {
+            int next = this.graph.getNeighbour(e);
+            desc.append("Chamber " + (chamber + 1) + " Exit " + (this.graph.getDoor(e) + 1) + " -> Passage " + (this.graph.getPassage(e) + 1)
+                + " -> Chamber " + (next + 1) + " Door " + (this.graph.getNeighbourDoor(e) + 1) + "\r\n");
+            chamber = next;
+        }
+        return desc.toString();
+    }
+
+    /**
+    * This method gets the component every chamber belongs to. Chambers in the
+    * same component can reach each other.
+    * @return - The component of every chamber, numbered from 0.
+    */
+    public int[] getComponents() {
+        if (this.components == null) {
+            findComponents();
+        }
+        return this.components;
+    }
+
+    /**
+    * This method gets the number of components on the level.
+    * @return - The number of groups of chambers that cannot reach each other.
+    */
+    public int getNumComponents() {
+        getComponents();
+        return this.numComponents;
+    }
+
+    /**
+    * This method tells if every chamber on the level can reach every other chamber.
+    * @return - True if the level is connected.
+    */
+    public boolean isConnected() {
+        return getNumComponents() <= 1;
+    }
+
+    /**
+    * This method labels every chamber with its component.
+    */
+    private void findComponents() {
+        int[] labels = new int[this.graph.getNumChambers()];
+        int[] queue = new int[labels.length];
+        int count = 0;
+
+        Arrays.fill(labels, -1);
+        for (int start = 0; start < labels.length; start++) {
+            if (labels[start] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            labels[start] = count;
+            queue[tail++] = start;
+            while (head < tail) {
+                int chamber = queue[head++];
+                for (int e = this.graph.getFirstEdge(chamber); e < this.graph.getEndEdge(chamber); e++) {
+                    int neighbour = this.graph.getNeighbour(e);
+                    if (labels[neighbour] < 0) {
+                        labels[neighbour] = count;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+            count++;
+        }
+
+        this.components = labels;
+        this.numComponents = count;
+    }
+
+    /**
+    * This method gets the chambers that would split the level if they were
+    * removed, using an iterative depth first search so large levels cannot
+    * overflow the stack.
+    * @return - The indexes of the articulation chambers, in order.
+    */
+    public int[] getArticulationChambers() {
+        int numChambers = this.graph.getNumChambers();
+        int[] found = new int[numChambers];
+        int[] lowest = new int[numChambers];
+        int[] parentPassage = new int[numChambers];
+        int[] nextEdge = new int[numChambers];
+        int[] stack = new int[numChambers];
+        boolean[] articulation = new boolean[numChambers];
+        int time = 0;
+        int count = 0;
+
+        for (int root = 0; root < numChambers; root++) {
+            if (found[root] != 0) {
+                continue;
+            }
+            int rootChildren = 0;
+            int top = 0;
+            found[root] = ++time;
+            lowest[root] = time;
+            parentPassage[root] = -1;
+            nextEdge[root] = this.graph.getFirstEdge(root);
+            stack[top++] = root;
+
+            while (top > 0) {
+                int chamber = stack[top - 1];
+                if (nextEdge[chamber] < this.graph.getEndEdge(chamber)) {
+                    int e = nextEdge[chamber]++;
+                    int neighbour = this.graph.getNeighbour(e);
+                    if (this.graph.getPassage(e) == parentPassage[chamber]) {
+                        continue;
+                    }
+                    if (found[neighbour] == 0) {
+                        found[neighbour] = ++time;
+                        lowest[neighbour] = time;
+                        parentPassage[neighbour] = this.graph.getPassage(e);
+                        nextEdge[neighbour] = this.graph.getFirstEdge(neighbour);
+                        stack[top++] = neighbour;
+                        rootChildren = chamber == root ? rootChildren + 1 : rootChildren;
+                    } else {
+                        lowest[chamber] = Math.min(lowest[chamber], found[neighbour]);
+                    }
+                } else {
+                    top--;
+                    if (top > 0) {
+                        int parent = stack[top - 1];
+                        lowest[parent] = Math.min(lowest[parent], lowest[chamber]);
+                        if (parent != root && lowest[chamber] >= found[parent] && !articulation[parent]) {
+                            articulation[parent] = true;
+                            count++;
+                        }
+                    }
+                }
+            }
+
+            if (rootChildren > 1) {
+                articulation[root] = true;
+                count++;
+            }
+        }
+
+        int[] chambers = new int[count];
+        int index = 0;
+        for (int i = 0; i < numChambers; i++) {
+            if (articulation[i]) {
+                chambers[index++] = i;
+            }
+        }
+        return chambers;
+    }
+
+}
@@ -0,0 +1,196 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      LevelGraph.java      *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+* This class holds how the chambers of a level are joined by passages, in
+* compressed sparse row form. The edges of chamber i are the indexes from
+* getFirstEdge(i) up to getEndEdge(i), and every passage is an edge in both
+* of the chambers it joins. Chambers and passages are numbered by their index
+* in the level's lists, doors by their index in Chamber.getDoors().
+*/
+public class LevelGraph implements Serializable {
+
+    /** The version of the serialized form of the class. */
+    private static final long serialVersionUID = 1L;
+
+    /** The index of the first edge of every chamber, plus the number of edges at the end. */
+    private final int[] firstEdge;
+    /** The chamber each edge leads to. */
+    private final int[] neighbours;
+    /** The passage each edge goes through. */
+    private final int[] passages;
+    /** The door each edge leaves its chamber by. */
+    private final byte[] doors;
+    /** The door each edge enters the chamber it leads to by. */
+    private final byte[] neighbourDoors;
+    /** The number of passages on the level. */
+    private final int numPassages;
+
+    /**
+    * This constructor builds the graph from the two ends of every passage.
+    * @param numChambers - The number of chambers on the level.
+    * @param from - The chamber each passage starts from.
+    * @param fromDoor - The door each passage starts from.
+    * @param to - The chamber each passage ends at.
+    * @param toDoor - The door each passage ends at.
+    */
+    public LevelGraph(int numChambers, int[] from, int[] fromDoor, int[] to, int[] toDoor) {
+        this.numPassages = from.length;
+        this.firstEdge = new int[numChambers + 1];
+        this.neighbours = new int[this.numPassages * 2];
+        this.passages = new int[this.numPassages * 2];
+        this.doors = new byte[this.numPassages * 2];
+        this.neighbourDoors = new byte[this.numPassages * 2];
+
+        for (int i = 0; i < this.numPassages; i++) {
+            this.firstEdge[from[i] + 1]++;
+            this.firstEdge[to[i] + 1]++;
+        }
+        for (int i = 0; i < numChambers; i++) {
+            this.firstEdge[i + 1] += this.firstEdge[i];
+        }
+
+        int[] nextEdge = new int[numChambers];
+        System.arraycopy(this.firstEdge, 0, nextEdge, 0, numChambers);
+        for (int i = 0; i < this.numPassages; i++) {
+            setEdge(nextEdge[from[i]]++, to[i], i, fromDoor[i], toDoor[i]);
+            setEdge(nextEdge[to[i]]++, from[i], i, toDoor[i], fromDoor[i]);
+        }
+    }
+
+    /**
+    * This method builds the graph of a level from its chambers and passages.
+    * Chamber and passage ids must already be set.
+    * @param allChambers - The chambers on the level.
+    * @param numPassages - The number of passages on the level.
+    * @return - The graph of the level.
+    */
+    static LevelGraph fromChambers(ArrayList<Chamber> allChambers, int numPassages) {
+        int[] from = new int[numPassages];
+        int[] fromDoor = new int[numPassages];
+        int[] to = new int[numPassages];
+        int[] toDoor = new int[numPassages];
+
+        for (int i = 0; i < allChambers.size(); i++) {
+            ArrayList<Door> chamberDoors = allChambers.get(i).getDoors();
+            for (int j = 0; j < chamberDoors.size(); j++) {
+                Door door = chamberDoors.get(j);
+                for (Chamber target : door.getTargets()) {
+                    Passage passage = door.getTargetPassage(target);
+                    int index = passage.getIdNumber() - 1;
+                    from[index] = i;
+                    fromDoor[index] = j;
+                    to[index] = target.getIdNumber() - 1;
+                    toDoor[index] = passage.getDoor(1).getIdNumber() - 1;
+                }
+            }
+        }
+
+        return new LevelGraph(allChambers.size(), from, fromDoor, to, toDoor);
+    }
+
+    /**
+    * This method sets all the values of an edge.
+    * @param edge - The index of the edge.
+    * @param neighbour - The chamber the edge leads to.
+    * @param passage - The passage the edge goes through.
+    * @param door - The door the edge leaves by.
+    * @param neighbourDoor - The door the edge enters by.
+    */
+    private void setEdge(int edge, int neighbour, int passage, int door, int neighbourDoor) {
+        this.neighbours[edge] = neighbour;
+        this.passages[edge] = passage;
+        this.doors[edge] = (byte) door;
+        this.neighbourDoors[edge] = (byte) neighbourDoor;
+    }
+
+    /**
+    * This method gets the number of chambers on the level.
+    * @return - The number of chambers.
+    */
+    public int getNumChambers() {
+        return this.firstEdge.length - 1;
+    }
+
+    /**
+    * This method gets the number of passages on the level.
+    * @return - The number of passages.
+    */
+    public int getNumPassages() {
+        return this.numPassages;
+    }
+
+    /**
+    * This method gets the index of the first edge of a chamber.
+    * @param chamber - The index of the chamber.
+    * @return - The index of the first edge.
+    */
+    public int getFirstEdge(int chamber) {
+        return this.firstEdge[chamber];
+    }
+
+    /**
+    * This method gets the index after the last edge of a chamber.
+    * @param chamber - The index of the chamber.
+    * @return - The index after the last edge.
+    */
+    public int getEndEdge(int chamber) {
+        return this.firstEdge[chamber + 1];
+    }
+
+    /**
+    * This method gets the number of passages that touch a chamber.
+    * @param chamber - The index of the chamber.
+    * @return - The number of edges of the chamber.
+    */
+    public int getDegree(int chamber) {
+        return this.firstEdge[chamber + 1] - this.firstEdge[chamber];
+    }
+
+    /**
+    * This method gets the chamber an edge leads to.
+    * @param edge - The index of the edge.
+    * @return - The index of the chamber.
+    */
+    public int getNeighbour(int edge) {
+        return this.neighbours[edge];
+    }
+
+    /**
+    * This method gets the passage an edge goes through.
+    * @param edge - The index of the edge.
+    * @return - The index of the passage.
+    */
+    public int getPassage(int edge) {
+        return this.passages[edge];
+    }
+
+    /**
+    * This method gets the door an edge leaves its chamber by.
+    * @param edge - The index of the edge.
+    * @return - The index of the door in the chamber.
+    */
+    public int getDoor(int edge) {
+        return this.doors[edge];
+    }
+
+    /**
+    * This method gets the door an edge enters the chamber it leads to by.
+    * @param edge - The index of the edge.
+    * @return - The index of the door in the chamber the edge leads to.
+    */
+    public int getNeighbourDoor(int edge) {
+        return this.neighbourDoors[edge];
+    }
+
+}
@@ -0,0 +1,39 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      LevelSink.java       *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+* This interface receives the descriptions of a level as it is streamed, one
+* chamber at a time followed by the passages leading out of it. Nothing passed
+* to it is kept by the level, so it can write the level out as it goes.
+*/
+public interface LevelSink {
+
+    /**
+    * This method receives the description of a chamber.
+    * @param id - The id of the chamber.
+    * @param description - The description of the chamber.
+    * @param exits - The descriptions of the exits of the chamber.
+    * @throws IOException - If the chamber could not be written.
+    */
+    void addChamber(int id, String description, ArrayList<String> exits) throws IOException;
+
+    /**
+    * This method receives the description of a passage.
+    * @param id - The id of the passage.
+    * @param description - The description of the passage.
+    * @param exits - The descriptions of the exits of the passage.
+    * @throws IOException - If the passage could not be written.
+    */
+    void addPassage(int id, String description, ArrayList<String> exits) throws IOException;
+
+}
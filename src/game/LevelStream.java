@@ -0,0 +1,159 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      LevelStream.java     *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+* This class generates a level a batch of chambers at a time and hands each
+* chamber and the passages leading out of it to a LevelSink, keeping only the
+* number of doors of every chamber between batches. A chamber and its passages
+* are rolled exactly as Level.generateLevel rolls them from the same seed, so
+* they get the same descriptions.
+*/
+class LevelStream {
+
+    /** The number of chambers generated in a batch when no size is given. */
+    static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /** The level that gives the seed, the monsters and if the level is connected. */
+    private final Level level;
+    /** The number of chambers on the level. */
+    private final int numChambers;
+    /** The number of chambers generated in a batch. */
+    private final int batchSize;
+    /** The number of doors in every chamber, rolled before any chamber is built. */
+    private final byte[] numDoors;
+
+    /**
+    * This is the constructor for this class.
+    * @param theLevel - The level that gives the seed, the monsters and if the level is connected.
+    * @param theNumChambers - The number of chambers on the level.
+    * @param theBatchSize - The number of chambers generated in a batch.
+    */
+    LevelStream(Level theLevel, int theNumChambers, int theBatchSize) {
+        this.level = theLevel;
+        this.numChambers = theNumChambers;
+        this.batchSize = Math.min(theBatchSize, theNumChambers);
+        this.numDoors = new byte[theNumChambers];
+    }
+
+    /**
+    * This method generates the level and hands it to the sink. Passages pick
+    * the door they enter by from the number of doors of the chamber they lead
+    * to, so the doors of every chamber are counted first with a Dice split the
+    * same way as the one the chambers are built with.
+    * @param sink - The sink to hand the chambers and passages to.
+    * @param pool - The pool to generate each batch on, or null to generate on the calling thread.
+    * @throws IOException - If the sink could not write the level.
+    */
+    void generate(LevelSink sink, ForkJoinPool pool) throws IOException {
+        countDoors(pool);
+
+        Dice levelDice = new Dice(this.level.getSeed());
+        UnionFind joined = this.level.requiresConnected() ? new UnionFind(this.numChambers) : null;
+        Dice[] chamberDice = new Dice[this.batchSize];
+        Chamber[] chambers = new Chamber[this.batchSize];
+        int[][] targets = new int[this.batchSize][];
+        int[][] enterDoors = new int[this.batchSize][];
+        int nextPassage = 0;
+
+        for (int start = 0; start < this.numChambers; start += this.batchSize) {
+            int first = start;
+            int count = Math.min(this.batchSize, this.numChambers - start);
+            for (int i = 0; i < count; i++) {
+                chamberDice[i] = levelDice.split();
+            }
+            RangeTask.run(pool, count, (i) -> {
+                chambers[i] = new Chamber(this.level, chamberDice[i]);
+                chambers[i].setIdNumber(first + i + 1);
+                if (joined == null) {
+                    targets[i] = Level.pickTargets(first + i, chambers[i].getNumExits(), this.numChambers, chamberDice[i], null);
+                    enterDoors[i] = pickEnterDoors(targets[i], chamberDice[i]);
+                }
+            });
+            if (joined != null) {
+                for (int i = 0; i < count; i++) {
+                    targets[i] = Level.pickTargets(first + i, chambers[i].getNumExits(), this.numChambers, chamberDice[i], joined);
+                    enterDoors[i] = pickEnterDoors(targets[i], chamberDice[i]);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                nextPassage = write(sink, chambers[i], targets[i], enterDoors[i], nextPassage);
+                chambers[i] = null;
+            }
+        }
+    }
+
+    /**
+    * This method rolls the number of doors of every chamber, a batch at a time.
+    * @param pool - The pool to roll on, or null to roll on the calling thread.
+    */
+    private void countDoors(ForkJoinPool pool) {
+        Dice levelDice = new Dice(this.level.getSeed());
+        Dice[] chamberDice = new Dice[this.batchSize];
+
+        for (int start = 0; start < this.numChambers; start += this.batchSize) {
+            int first = start;
+            int count = Math.min(this.batchSize, this.numChambers - start);
+            for (int i = 0; i < count; i++) {
+                chamberDice[i] = levelDice.split();
+            }
+            RangeTask.run(pool, count, (i) -> this.numDoors[first + i] = (byte) Chamber.countExits(chamberDice[i]));
+        }
+    }
+
+    /**
+    * This method picks the door every passage leading out of a chamber enters its target by.
+    * @param targets - The index of the chamber every door leads to.
+    * @param theDice - The Dice of the chamber.
+    * @return - The index of the door every passage enters by.
+    */
+    private int[] pickEnterDoors(int[] targets, Dice theDice) {
+        int[] enterDoors = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            enterDoors[i] = theDice.nextInt(this.numDoors[targets[i]]);
+        }
+        return enterDoors;
+    }
+
+    /**
+    * This method hands a chamber and the passages leading out of it to the sink.
+    * The door a passage enters by is described with the exits of the chamber it enters.
+    * @param sink - The sink to hand them to.
+    * @param theChamber - The chamber.
+    * @param targets - The index of the chamber every door leads to.
+    * @param enterDoors - The index of the door every passage enters by.
+    * @param firstPassage - The index of the first passage leading out of the chamber.
+    * @return - The index of the first passage leading out of the next chamber.
+    * @throws IOException - If the sink could not write them.
+    */
+    private int write(LevelSink sink, Chamber theChamber, int[] targets, int[] enterDoors, int firstPassage) throws IOException {
+        ArrayList<Door> doors = theChamber.getDoors();
+        int chamberId = theChamber.getIdNumber();
+        ArrayList<String> exits = new ArrayList<String>();
+
+        for (int i = 0; i < doors.size(); i++) {
+            exits.add(DataFactory.getExitDescription(i + 1, doors.get(i), targets[i] + 1, firstPassage + i + 1, enterDoors[i] + 1));
+        }
+        sink.addChamber(chamberId, theChamber.getDescription(), exits);
+
+        for (int i = 0; i < doors.size(); i++) {
+            int passageId = firstPassage + i + 1;
+            ArrayList<String> passageExits = new ArrayList<String>();
+            passageExits.add(DataFactory.getPassageExitDescription(chamberId, 1, doors.get(i), targets[i] + 1, passageId, enterDoors[i] + 1));
+            sink.addPassage(passageId, DataFactory.getPassageDescription(passageId, chamberId, targets[i] + 1, new Passage().getDescription()), passageExits);
+        }
+
+        return firstPassage + doors.size();
+    }
+
+}
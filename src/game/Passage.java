@@ -18,6 +18,9 @@ import monsters.Monster;
 */
 public class Passage extends Space {
 
+    /** The version of the serialized form, kept from before the class changed so saved levels still load. */
+    private static final long serialVersionUID = 6291156628010997804L;
+
     /** ArrayList of the passage sections. */
     private ArrayList<PassageSection> thePassages;
     /** ArrayList of the doors. */
@@ -239,6 +242,21 @@ public class Passage extends Space {
 
     }
 
+    /**
+    * This method generates the sections of the passage again, leaving it
+    * without monsters or treasure. The sections are not rolled, so they come
+    * out the same as before. Its id and its doors stay the same, and the state
+    * of the doors is rolled by Level.regeneratePassage.
+    */
+    void regenerate() {
+
+        this.thePassages.clear();
+        this.monsters.clear();
+        this.treasures.clear();
+        generatePassage();
+
+    }
+
     /**
     * This method randomly generates all the sections in the passage.
     */
@@ -79,9 +79,10 @@ public class PassageSection implements Serializable {
 
     /**
     * This method generates a new door and adds it to the passage section.
+    * @param dice - The Dice to roll the door with.
     */
-    private void addDoor() {
-        Door theDoor = new Door();
+    private void addDoor(Dice dice) {
+        Door theDoor = new Door(dice);
         this.door = theDoor;
         this.hasDoor = true;
     }
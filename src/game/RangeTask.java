@@ -0,0 +1,84 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      RangeTask.java       *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+* This class runs a piece of work for every index in a range, splitting the
+* range in halves across a ForkJoinPool until the pieces are small enough.
+*/
+class RangeTask extends RecursiveAction {
+
+    /** The version of the serialized form of the class. */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of pieces each worker thread gets, so uneven pieces even out. */
+    private static final int PIECES_PER_THREAD = 8;
+
+    /** The work to run for each index. */
+    private final IntConsumer work;
+    /** The first index in the range. */
+    private final int start;
+    /** The index after the last index in the range. */
+    private final int end;
+    /** The largest range that is not split any further. */
+    private final int pieceSize;
+
+    /**
+    * This constructor creates a task for part of a range.
+    * @param theWork - The work to run for each index.
+    * @param theStart - The first index in the range.
+    * @param theEnd - The index after the last index in the range.
+    * @param thePieceSize - The largest range that is not split any further.
+    */
+    private RangeTask(IntConsumer theWork, int theStart, int theEnd, int thePieceSize) {
+        this.work = theWork;
+        this.start = theStart;
+        this.end = theEnd;
+        this.pieceSize = thePieceSize;
+    }
+
+    /**
+    * This method runs the work for every index from 0 to count - 1. If there is
+    * no pool the indexes are run in order on the calling thread.
+    * @param pool - The pool to run on, or null to run on the calling thread.
+    * @param count - The number of indexes.
+    * @param theWork - The work to run for each index.
+    */
+    static void run(ForkJoinPool pool, int count, IntConsumer theWork) {
+        if (pool == null || count < 2) {
+            for (int i = 0; i < count; i++) {
+                theWork.accept(i);
+            }
+        } else {
+            int pieces = pool.getParallelism() * PIECES_PER_THREAD;
+            pool.invoke(new RangeTask(theWork, 0, count, Math.max(1, count / pieces)));
+        }
+    }
+
+    /**
+    * This method runs the range, or splits it in half if it is too large.
+    */
+    @Override
+    protected void compute() {
+        if (this.end - this.start <= this.pieceSize) {
+            for (int i = this.start; i < this.end; i++) {
+                this.work.accept(i);
+            }
+        } else {
+            int middle = (this.start + this.end) >>> 1;
+            invokeAll(new RangeTask(this.work, this.start, middle, this.pieceSize),
+                new RangeTask(this.work, middle, this.end, this.pieceSize));
+        }
+    }
+
+}
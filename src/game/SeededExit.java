@@ -0,0 +1,147 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      SeededExit.java      *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+import dnd.models.Exit;
+import java.io.Serializable;
+
+/**
+* This class is the location and direction of an exit, rolled with a Dice.
+* The library Exit rolls its own die, so the same seed would not give the
+* same exits with it, and every Exit builds a Random and rolls it twice when it
+* is created. The tables are the same as the library's.
+*/
+final class SeededExit implements Serializable {
+
+    /** The version of the serialized form of the class. */
+    private static final long serialVersionUID = 1L;
+
+    /** The locations of an exit, indexed by a d4 roll - 1. */
+    private static final String[] LOCATIONS = {"opposite wall", "left wall", "right wall", "left wall"};
+    /** The directions of an exit, indexed by a d4 roll - 1. */
+    private static final String[] DIRECTIONS = {"straight ahead", "straight ahead", "45 degrees left", "45 degrees right"};
+
+    /** The wall the exit is on. */
+    private String location;
+    /** The direction the exit leads in. */
+    private String direction;
+
+    /**
+    * This constructor rolls the location and direction of the exit.
+    * @param dice - The Dice to roll with.
+    */
+    SeededExit(Dice dice) {
+        this.location = LOCATIONS[dice.d4() - 1];
+        this.direction = DIRECTIONS[dice.d4() - 1];
+    }
+
+    /**
+    * This constructor copies the location and direction of a library Exit.
+    * @param theExit - The Exit to copy.
+    */
+    SeededExit(Exit theExit) {
+        this.location = theExit.getLocation();
+        this.direction = theExit.getDirection();
+    }
+
+    /**
+    * This method gets the exit of a level that was saved, which is a library
+    * Exit if the level was saved before exits were kept as a SeededExit.
+    * @param saved - The exit that was saved, or null.
+    * @return - The exit as a SeededExit, or null if none was saved.
+    */
+    static SeededExit of(Object saved) {
+        if (saved == null || saved instanceof SeededExit) {
+            return (SeededExit) saved;
+        }
+        return new SeededExit((Exit) saved);
+    }
+
+    /**
+    * This method gets the location of the exit.
+    * @return A String with the location of the exit.
+    */
+    public String getLocation() {
+        return this.location;
+    }
+
+    /**
+    * This method gets the direction of the exit.
+    * @return A String with the direction of the exit.
+    */
+    public String getDirection() {
+        return this.direction;
+    }
+
+    /**
+    * This method gets the description of the exit.
+    * @return A String with the location and direction of the exit.
+    */
+    public String getDescription() {
+        return this.location + " " + this.direction;
+    }
+
+    /**
+    * This method gets the exit as a library Exit. The Exit is built on every
+    * call, and builds and rolls its own Random as it is built.
+    * @return An Exit with the location and direction of this exit.
+    */
+    Exit toExit() {
+        return new LibraryExit(this);
+    }
+
+    /**
+    * This class is a library Exit that gives the location and direction of a SeededExit.
+    */
+    private static final class LibraryExit extends Exit {
+
+        /** The version of the serialized form of the class. */
+        private static final long serialVersionUID = 1L;
+
+        /** The exit this gives the location and direction of. */
+        private final SeededExit exit;
+
+        /**
+        * This constructor wraps a SeededExit.
+        * @param theExit - The exit to give the location and direction of.
+        */
+        LibraryExit(SeededExit theExit) {
+            this.exit = theExit;
+        }
+
+        /**
+        * This method gets the location of the exit.
+        * @return A String with the location of the exit.
+        */
+        @Override
+        public String getLocation() {
+            return this.exit.getLocation();
+        }
+
+        /**
+        * This method gets the direction of the exit.
+        * @return A String with the direction of the exit.
+        */
+        @Override
+        public String getDirection() {
+            return this.exit.getDirection();
+        }
+
+        /**
+        * This method gets the description of the exit.
+        * @return A String with the location and direction of the exit.
+        */
+        @Override
+        public String getDescription() {
+            return this.exit.getDescription();
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+/***************************\
+*   Muhammad Ali Ghaznavi   *
+*   mghaznav@uoguelph.ca    *
+*      UnionFind.java       *
+*         1068753           *
+*         18/10/26          *
+\***************************/
+
+package game;
+
+/**
+* This class keeps track of which chambers are joined to each other while a
+* level is being wired up. Joining and finding take nearly constant time, with
+* union by size and path halving.
+*/
+class UnionFind {
+
+    /** The parent of every chamber, a chamber that is its own parent is a root. */
+    private final int[] parents;
+    /** The number of chambers under every root. */
+    private final int[] sizes;
+
+    /**
+    * This constructor starts with every chamber on its own.
+    * @param count - The number of chambers.
+    */
+    UnionFind(int count) {
+        this.parents = new int[count];
+        this.sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.parents[i] = i;
+            this.sizes[i] = 1;
+        }
+    }
+
+    /**
+    * This method finds the root of the group a chamber is in.
+    * @param chamber - The index of the chamber.
+    * @return - The index of the root chamber.
+    */
+    int find(int chamber) {
+        int current = chamber;
+        while (this.parents[current] != current) {
+            this.parents[current] = this.parents[this.parents[current]];
+            current = this.parents[current];
+        }
+        return current;
+    }
+
+    /**
+    * This method tells if two chambers are in the same group.
+    * @param first - The index of the first chamber.
+    * @param second - The index of the second chamber.
+    * @return - True if the chambers are joined.
+    */
+    boolean connected(int first, int second) {
+        return find(first) == find(second);
+    }
+
+    /**
+    * This method joins the groups of two chambers.
+    * @param first - The index of the first chamber.
+    * @param second - The index of the second chamber.
+    */
+    void union(int first, int second) {
+        int rootOne = find(first);
+        int rootTwo = find(second);
+
+        if (rootOne == rootTwo) {
+            return;
+        }
+        if (this.sizes[rootOne] < this.sizes[rootTwo]) {
+            int swap = rootOne;
+            rootOne = rootTwo;
+            rootTwo = swap;
+        }
+        this.parents[rootTwo] = rootOne;
+        this.sizes[rootOne] += this.sizes[rootTwo];
+    }
+
+}
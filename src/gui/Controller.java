@@ -9,28 +9,39 @@
 package gui;
 
 import dnd.models.Treasure;
+import game.Dice;
 import game.Level;
+import game.LevelAnalysis;
 import game.DataFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.io.FileOutputStream;
 import java.io.FileInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectInputStream;
 import java.io.IOException;
-import monsters.DBConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import monsters.AsyncMonsters;
 import monsters.Monster;
+import monsters.MonsterCache;
+import monsters.MonsterCatalog;
+import monsters.SharedCatalog;
 
 /**
 * This class helps the view communicate with the model and helps passing data along.
 */
 public class Controller {
+    /** The most monsters a search gives back. */
+    private static final int SEARCH_LIMIT = 100;
     /** An Arraylist of all the doors. */
     private ArrayList<String> currExits;
     /** The data factory of the level generated. */
     private DataFactory myData;
-    /** A connection to the DB of monsters. */
-    private DBConnection dbc;
+    /** Runs the results of calls to the DB of monsters on the thread of the gui. */
+    private Executor uiThread;
     /** The current gui. */
     private GuiDemo myGui;
     /** A map of all the treasures and their roll. */
@@ -39,20 +50,68 @@ public class Controller {
     private int currItem;
     /** The current level. */
     private Level level;
+    /** The analysis of how the chambers in the current level are joined. */
+    private LevelAnalysis analysis;
+    /** The level without monsters shown until the monsters are loaded, or null once they are. */
+    private Level placeholder;
 
     /**
-    * This is the constructor for this class.
+    * This is the constructor for this class. It starts with a level without
+    * monsters, so the gui never waits for the database; loadMonsters puts the
+    * first level with monsters in its place.
     * @param theGui - The main Gui
     */
     public Controller(GuiDemo theGui) {
         myGui = theGui;
-        level = new Level();
-        level.generateLevel();
-        this.dbc = new DBConnection();
-        myData = level.getDataFactory();
+        this.uiThread = Runnable::run;
+        placeholder = new Level(Dice.newSeed(), new MonsterCatalog(null));
+        placeholder.generateLevel();
+        showLevel(placeholder);
         createTreasures();
     }
 
+    /**
+    * This method loads the monsters in the background and then makes the first
+    * level with them, from the same seed, in place of the level the gui starts
+    * with. If no monsters could be loaded in time, it waits for the load running
+    * in the background instead. Nothing is replaced if another level was loaded
+    * in the meantime. Call it once the thread of the gui is set.
+    */
+    public void loadMonsters() {
+        SharedCatalog shared = SharedCatalog.getShared();
+
+        CompletableFuture.supplyAsync(shared::getCatalog)
+            .thenCompose((catalog) -> catalog.size() > 0 || shared.isOffline() ? CompletableFuture.completedFuture(catalog) : shared.refresh())
+            .thenAccept((catalog) -> this.uiThread.execute(() -> firstLevel(catalog)));
+    }
+
+    /**
+    * This method makes the first level with the monsters once they are loaded, if
+    * the level without monsters is still the one shown.
+    * @param catalog - The catalog of all the monsters.
+    */
+    private void firstLevel(MonsterCatalog catalog) {
+        Level waiting = this.placeholder;
+        this.placeholder = null;
+        if (waiting == null || this.level != waiting) {
+            return;
+        }
+        Level first = new Level(this.level.getSeed(), catalog);
+        first.generateLevel();
+        showLevel(first);
+        myGui.reset();
+    }
+
+    /**
+    * This method makes a level the current level.
+    * @param theLevel - The level to show.
+    */
+    private void showLevel(Level theLevel) {
+        this.level = theLevel;
+        this.myData = theLevel.getDataFactory();
+        this.analysis = new LevelAnalysis(theLevel.getGraph());
+    }
+
     /**
     * This method gets a list of all the spaces in the current level.
     * @return - An ArrayList of all the spaces in the level.
@@ -81,16 +140,45 @@ public class Controller {
     */
     public String getItemDescription(int index) {
         this.currItem = index;
-        if (index <= 4) {
+        if (isChamber(index)) {
             currExits = this.myData.getChamberExits(index + 1);
-            return this.myData.getChamberDesc(index);
+            return this.myData.getChamberDesc(index) + "\r\n" + getRouteDescription(0, index);
         } else {
-            currExits = this.myData.getPassageExits(index - 4);
-            return this.myData.getPassageDesc(index - 5);
+            currExits = this.myData.getPassageExits(passageIndex(index) + 1);
+            return this.myData.getPassageDesc(passageIndex(index));
         }
 
     }
 
+    /**
+    * This method describes the shortest route between two chambers.
+    * @param from - The index of the chamber to start from.
+    * @param to - The index of the chamber to end at.
+    * @return - A String with the number of passages and each step of the route.
+    */
+    public String getRouteDescription(int from, int to) {
+        return this.analysis.getRouteDescription(from, to);
+    }
+
+    /**
+    * This method tells if the item at an index of the space list is a chamber.
+    * Chambers are listed first, followed by the passages.
+    * @param index - The index in the list of all the spaces.
+    * @return - True if the item is a chamber.
+    */
+    private boolean isChamber(int index) {
+        return index < this.level.getChambers().size();
+    }
+
+    /**
+    * This method gets the index of a passage from its index in the list of all the spaces.
+    * @param index - The index in the list of all the spaces.
+    * @return - The index of the passage in the level.
+    */
+    private int passageIndex(int index) {
+        return index - this.level.getChambers().size();
+    }
+
     /**
     * This method gets the list of all the doors.
     * @return - An ArrayList of all the doors.
@@ -142,6 +230,7 @@ public class Controller {
         try {
             this.level = (Level) in.readObject();
             this.myData = this.level.getDataFactory();
+            this.analysis = new LevelAnalysis(this.level.getGraph());
             this.myGui.reset();
         } catch (ClassNotFoundException c) {
             System.out.println("Level class not found");
@@ -158,7 +247,7 @@ public class Controller {
     * @return - The Arraylist of all the monsters.
     */
     public ArrayList<String> getDBMonsters() {
-        ArrayList<Monster> allMonsters = level.getAllMonsters();
+        List<Monster> allMonsters = level.getAllMonsters();
         ArrayList<String> monsters = new ArrayList<String>();
 
         allMonsters.forEach((m) -> {
@@ -168,6 +257,58 @@ public class Controller {
         return monsters;
     }
 
+    /**
+    * This method gets the monsters whose lower and upper bounds share a challenge
+    * with a range, such as the levels of the players in a party.
+    * @param lowest - The lowest challenge.
+    * @param highest - The highest challenge.
+    * @return - The Arraylist of the names of the monsters.
+    */
+    public ArrayList<String> getDBMonsters(int lowest, int highest) {
+        ArrayList<String> monsters = new ArrayList<String>();
+
+        level.getCatalog().findOverlapping(lowest, highest).forEach((m) -> {
+            monsters.add(m.getName());
+        });
+
+        return monsters;
+    }
+
+    /**
+    * This method searches the names and descriptions of all the monsters.
+    * @param query - The words to search for, each of which can be the start of a word.
+    * @return - The Arraylist of the names of the monsters found, best first.
+    */
+    public ArrayList<String> searchMonsters(String query) {
+        ArrayList<String> monsters = new ArrayList<String>();
+
+        SharedCatalog.getShared().getSearchIndex().search(query, SEARCH_LIMIT).forEach((m) -> {
+            monsters.add(m.getName());
+        });
+
+        return monsters;
+    }
+
+    /**
+    * This method searches the names and descriptions of the monsters whose lower
+    * and upper bounds share a challenge with a range.
+    * @param query - The words to search for.
+    * @param lowest - The lowest challenge.
+    * @param highest - The highest challenge.
+    * @return - The Arraylist of the names of the monsters found, best first.
+    */
+    public ArrayList<String> searchMonsters(String query, int lowest, int highest) {
+        ArrayList<String> monsters = new ArrayList<String>();
+
+        SharedCatalog.getShared().getSearchIndex().search(query, Integer.MAX_VALUE).forEach((m) -> {
+            if (monsters.size() < SEARCH_LIMIT && m.hasBounds() && m.getMinBound() <= highest && m.getMaxBound() >= lowest) {
+                monsters.add(m.getName());
+            }
+        });
+
+        return monsters;
+    }
+
     /**
     * This method gets all the treasures.
     * @return - The Arraylist of all the treasures.
@@ -185,10 +326,10 @@ public class Controller {
     public ArrayList<String> getCurrTreasures() {
         ArrayList<String> allTreasures = new ArrayList<String>();
         ArrayList<Treasure> treasure = new ArrayList<Treasure>();
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             treasure = this.level.getChamberTreasures(this.currItem);
         } else {
-            treasure = this.level.getPassageTreasures((this.currItem - 5));
+            treasure = this.level.getPassageTreasures(passageIndex(this.currItem));
         }
 
         treasure.forEach((t) -> {
@@ -205,10 +346,10 @@ public class Controller {
     public ArrayList<String> getCurrMonsters() {
         ArrayList<String> allMonsters = new ArrayList<String>();
         ArrayList<Monster> monsters = new ArrayList<Monster>();
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             monsters = this.level.getChamberMonsters(this.currItem);
         } else {
-            monsters = this.level.getPassageMonsters((this.currItem - 5));
+            monsters = this.level.getPassageMonsters(passageIndex(this.currItem));
         }
 
         monsters.forEach((m) -> {
@@ -224,7 +365,7 @@ public class Controller {
     */
     public void addMonsterToSpace(String name) {
 
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             addMonsterToChamber(name);
         } else {
             addMonsterToPassage(name);
@@ -232,13 +373,27 @@ public class Controller {
 
     }
 
+    /**
+    * This method rolls the current space again, keeping where its doors lead.
+    */
+    public void regenerateSpace() {
+
+        if (isChamber(this.currItem)) {
+            level.regenerateChamber(this.currItem);
+        } else {
+            level.regeneratePassage(passageIndex(this.currItem));
+        }
+        myGui.reset();
+
+    }
+
     /**
     * This method adds a Treasure to a space at a specific index.
     * @param name - The name of the treasure to add.
     */
     public void addTreasureToSpace(String name) {
 
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             addTreasureToChamber(name);
         } else {
             addTreasureToPassage(name);
@@ -253,7 +408,7 @@ public class Controller {
     private void addTreasureToPassage(String name) {
         Treasure treasure = new Treasure();
         treasure.chooseTreasure(this.treasures.get(name));
-        level.addTreasureInPassage(treasure, (this.currItem - 5));
+        level.addTreasureInPassage(treasure, passageIndex(this.currItem));
         myData.resetDescription();
         myGui.reset();
     }
@@ -289,7 +444,7 @@ public class Controller {
     private void removeTreasureFromPassage(String name) {
         Treasure treasure = new Treasure();
         treasure.chooseTreasure(this.treasures.get(name));
-        level.deleteTreasureFromPassage(treasure, (this.currItem - 5));
+        level.deleteTreasureFromPassage(treasure, passageIndex(this.currItem));
         myData.resetDescription();
         myGui.reset();
     }
@@ -299,7 +454,7 @@ public class Controller {
     * @param name - The name of the monster to remove.
     */
     public void removeMonsterFromSpace(String name) {
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             removeMonsterFromChamber(name);
         } else {
             removeMonsterFromPassage(name);
@@ -312,19 +467,88 @@ public class Controller {
     */
     public void removeTreasureFromSpace(String name) {
 
-        if (this.currItem <= 4) {
+        if (isChamber(this.currItem)) {
             removeTreasureFromChamber(name);
         } else {
             removeTreasureFromPassage(name);
         }
     }
 
+    /**
+    * This method sets where the results of calls to the DB of monsters are run. The
+    * calls run in the background, so a gui passes the method that runs code on its thread.
+    * @param theUiThread - Runs code on the thread of the gui.
+    */
+    public void setUiThread(Executor theUiThread) {
+        this.uiThread = theUiThread;
+    }
+
+    /**
+    * This method finds a monster by name in the catalog of the level, and only asks
+    * the database for it if it is not there and the catalog is not offline. The
+    * database is asked in the background, and the monster is added to the catalog
+    * and passed on on the thread of the gui once it is found.
+    * @param name - The name of the monster.
+    * @param then - What to do with the monster once it is found.
+    */
+    private void findMonster(String name, Consumer<Monster> then) {
+        Level current = this.level;
+        Monster monster = current.getCatalog().find(name);
+
+        if (monster != null) {
+            then.accept(monster);
+            return;
+        }
+        if (SharedCatalog.getShared().isOffline()) {
+            return;
+        }
+        AsyncMonsters.getShared().findMonster(name).whenComplete((found, error) -> this.uiThread.execute(() -> {
+            if (error != null) {
+                System.out.println("Could not find " + name + ": " + error);
+            } else if (found.getName() != null) {
+                current.setCatalog(current.getCatalog().withMonster(found));
+                if (current == this.level) {
+                    then.accept(found);
+                }
+            }
+        }));
+    }
+
+    /**
+    * This method gets the monster to take out of a space by its name. Monsters are
+    * taken out by name, so the database is never asked for it.
+    * @param name - The name of the monster.
+    * @return - The monster from the catalog, or one with only the name.
+    */
+    private Monster monsterNamed(String name) {
+        Monster monster = this.level.getCatalog().find(name);
+
+        if (monster == null) {
+            monster = new Monster();
+            monster.setName(name);
+        }
+        return monster;
+    }
+
+    /**
+    * This method loads the catalog of all the monsters from the database again in
+    * the background, so monsters added to or changed in the database since the level
+    * was made show up. The catalog is kept if the database gives back no monsters.
+    * Levels made after this get the reloaded catalog as well.
+    */
+    public void refreshMonsters() {
+        Level current = this.level;
+
+        MonsterCache.getShared().invalidateAll();
+        SharedCatalog.getShared().refresh().thenAccept((catalog) -> this.uiThread.execute(() -> current.setCatalog(catalog)));
+    }
+
     /**
     * This method removes a monster from a chamber.
     * @param name - The name of the monster to remove.
     */
     private void removeMonsterFromChamber(String name) {
-        Monster monster = this.dbc.findMonster(name);
+        Monster monster = monsterNamed(name);
         level.deleteMonsterFromChamber(monster, this.currItem);
         myData.resetDescription();
         myGui.reset();
@@ -335,8 +559,8 @@ public class Controller {
     * @param name - The name of the monster to remove.
     */
     private void removeMonsterFromPassage(String name) {
-        Monster monster = this.dbc.findMonster(name);
-        level.deleteMonsterFromPassage(monster, (this.currItem - 5));
+        Monster monster = monsterNamed(name);
+        level.deleteMonsterFromPassage(monster, passageIndex(this.currItem));
         myData.resetDescription();
         myGui.reset();
     }
@@ -346,10 +570,12 @@ public class Controller {
     * @param name - The name of the monster to add.
     */
     private void addMonsterToChamber(String name) {
-        Monster monster = this.dbc.findMonster(name);
-        level.addMonsterInChamber(monster, this.currItem);
-        myData.resetDescription();
-        myGui.reset();
+        int item = this.currItem;
+        findMonster(name, (monster) -> {
+            level.addMonsterInChamber(monster, item);
+            myData.resetDescription();
+            myGui.reset();
+        });
     }
 
     /**
@@ -357,10 +583,12 @@ public class Controller {
     * @param name - The name of the monster to add.
     */
     private void addMonsterToPassage(String name) {
-        Monster monster = this.dbc.findMonster(name);
-        level.addMonsterInPassage(monster, (this.currItem - 5));
-        myData.resetDescription();
-        myGui.reset();
+        int passage = passageIndex(this.currItem);
+        findMonster(name, (monster) -> {
+            level.addMonsterInPassage(monster, passage);
+            myData.resetDescription();
+            myGui.reset();
+        });
     }
 
     /**
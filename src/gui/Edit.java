@@ -17,6 +17,7 @@ import javafx.stage.Popup;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.RadioButton;
+import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.Toggle;
 import javafx.scene.layout.HBox;
@@ -39,6 +40,10 @@ public class Edit {
     private VBox theBox;
     /** The list of the current items. */
     private ComboBox<String> list;
+    /** The challenge, or range of challenges, the monsters to add must fit. */
+    private TextField challenge;
+    /** The words the names or descriptions of the monsters to add must have. */
+    private TextField search;
     /** The int reprsenting current action. */
     private int action;
     /** The int reprsenting current type. */
@@ -80,7 +85,7 @@ public class Edit {
     private void addContent() {
         VBox contentBox = new VBox();
         contentBox.getStyleClass().add("content-box");
-        contentBox.getChildren().addAll(getOptionGroup1(), getOptionGroup2(), getList(), getButtons());
+        contentBox.getChildren().addAll(getOptionGroup1(), getOptionGroup2(), getSearchFilter(), getChallengeFilter(), getList(), getButtons());
         this.theBox.getChildren().add(contentBox);
     }
 
@@ -199,11 +204,23 @@ public class Edit {
     }
 
     /**
-    * This method loads all the monsters in the combobox list.
+    * This method loads all the monsters in the combobox list, or only the ones
+    * that match the words searched for and fit the challenge typed in.
     */
     private void loadAllMonsters() {
         ObservableList monsterList = FXCollections.observableArrayList();
-        ArrayList<String> monsters = theController.getDBMonsters();
+        String query = this.search.getText().trim();
+        int[] range = getChallengeRange();
+        ArrayList<String> monsters;
+        if (!query.isEmpty() && range != null) {
+            monsters = theController.searchMonsters(query, range[0], range[1]);
+        } else if (!query.isEmpty()) {
+            monsters = theController.searchMonsters(query);
+        } else if (range != null) {
+            monsters = theController.getDBMonsters(range[0], range[1]);
+        } else {
+            monsters = theController.getDBMonsters();
+        }
 
         monsters.forEach((m) -> {
             monsterList.add(m);
@@ -235,6 +252,63 @@ public class Edit {
         }
     }
 
+    /**
+    * This method creates the field for the words to search the monsters to add for.
+    * @return - An HBox with the field.
+    */
+    private HBox getSearchFilter() {
+        HBox region = new HBox();
+        region.getStyleClass().add("option-hbox");
+        this.search = new TextField();
+        this.search.setPromptText("name or description");
+        this.search.textProperty().addListener((observable, oldText, newText) -> filterChanged());
+        region.getChildren().addAll(new Label("Search:          "), this.search);
+        return region;
+    }
+
+    /**
+    * This method loads the monsters to add again when what they are filtered by changes.
+    */
+    private void filterChanged() {
+        if (this.type == 1 && this.action == 0) {
+            loadAllMonsters();
+        }
+    }
+
+    /**
+    * This method creates the field for the challenge the monsters to add must fit.
+    * @return - An HBox with the field.
+    */
+    private HBox getChallengeFilter() {
+        HBox region = new HBox();
+        region.getStyleClass().add("option-hbox");
+        this.challenge = new TextField();
+        this.challenge.setPromptText("e.g. 3 or 2-5");
+        this.challenge.textProperty().addListener((observable, oldText, newText) -> filterChanged());
+        region.getChildren().addAll(new Label("Challenge:     "), this.challenge);
+        return region;
+    }
+
+    /**
+    * This method reads the challenge typed in, a number or two numbers with a dash between them.
+    * @return - The lowest and highest challenge, or null if none was typed in.
+    */
+    private int[] getChallengeRange() {
+        String text = this.challenge.getText().trim();
+        int dash = text.indexOf('-', 1);
+        try {
+            if (dash < 0) {
+                int value = Integer.parseInt(text);
+                return new int[] {value, value};
+            }
+            int lowest = Integer.parseInt(text.substring(0, dash).trim());
+            int highest = Integer.parseInt(text.substring(dash + 1).trim());
+            return new int[] {Math.min(lowest, highest), Math.max(lowest, highest)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
     * This method creates the ComboBox list of current items.
     * @return - An HBox with the comboBox.
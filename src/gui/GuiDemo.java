@@ -9,6 +9,7 @@
 package gui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -106,6 +107,8 @@ public class GuiDemo extends Application {
     */
     private void setController() {
         this.theController = new Controller(this);
+        this.theController.setUiThread(Platform::runLater);
+        this.theController.loadMonsters();
     }
 
     /**
@@ -130,8 +133,9 @@ public class GuiDemo extends Application {
         Menu file = new Menu("File");
         MenuItem save = saveItem();
         MenuItem load = loadItem();
+        MenuItem refresh = refreshItem();
 
-        file.getItems().addAll(save, load);
+        file.getItems().addAll(save, load, refresh);
         menu.getMenus().add(file);
 
         return menu;
@@ -166,6 +170,18 @@ public class GuiDemo extends Application {
         return item;
     }
 
+    /**
+    * This method creates a MenuItem for loading the monsters from the database again.
+    * @return - The MenuItem for reloading the monsters.
+    */
+    private MenuItem refreshItem() {
+        MenuItem item = new MenuItem("Reload Monsters");
+        item.setOnAction((ActionEvent event) -> {
+            theController.refreshMonsters();
+        });
+        return item;
+    }
+
     /**
     * This method creates a VBox to set it as the right node of the rood.
     * @return - The VBox created to be the right node of the root.
@@ -203,7 +219,7 @@ public class GuiDemo extends Application {
         cpList.setItems(listItems);
         initListAction();
 
-        box.getChildren().addAll(cpList, fill, createEditButton());
+        box.getChildren().addAll(cpList, fill, createEditButton(), createRerollButton());
 
         return box;
     }
@@ -224,6 +240,20 @@ public class GuiDemo extends Application {
         return btn;
     }
 
+    /**
+    * This method creates a button for rolling the current space again.
+    * @return - The Button for rolling again.
+    */
+    private Button createRerollButton() {
+        Button btn = new Button();
+        btn.setText("Reroll");
+        btn.setOnAction((ActionEvent event) -> {
+            theController.regenerateSpace();
+        });
+
+        return btn;
+    }
+
     /**
     * This method sets the ActionEvent for the list items in the space list.
     */
@@ -0,0 +1,215 @@
+package monsters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs MonsterStore calls on a small pool of worker threads and hands back a CompletableFuture,
+ * so callers such as the GUI never wait on the database. The futures complete on a worker
+ * thread, so a GUI has to move their results onto its own thread.
+ *
+ * Every call times out: the future fails with a TimeoutException after the timeout, and the
+ * statement is given the same timeout in the database. Cancelling a future, or it timing out,
+ * takes the call off the queue if it has not started, or asks the database to stop its
+ * statement if it has. When the queue is full, calls fail straight away with a
+ * RejectedExecutionException instead of piling up.
+ *
+ * If it is given a MonsterCache, monsters are looked for in it before a call is made, and
+ * monsters read or written are cached the same way the cache does it itself.
+ */
+public class AsyncMonsters {
+
+	public static final int DEFAULT_THREADS = 4;
+	public static final int DEFAULT_QUEUE = 64;
+	public static final long DEFAULT_TIMEOUT = 15000;
+
+	private static volatile AsyncMonsters shared;
+
+	private final Supplier<MonsterStore> stores;
+	private final long timeout;
+	private final MonsterCache cache;
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * @param stores gives the store each call is run on, a new DBConnection each time for MySQL
+	 * so that cancelling a call only ever stops its own statement
+	 * @param threads the most calls run at once
+	 * @param queue the most calls waiting to run
+	 * @param timeout milliseconds a call may take, from when it is made
+	 * @param cache the cache to read and write through, or null for none
+	 */
+	public AsyncMonsters(Supplier<MonsterStore> stores, int threads, int queue, long timeout, MonsterCache cache){
+		this.stores = stores;
+		this.timeout = timeout;
+		this.cache = cache;
+		this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queue), (task) -> {
+			Thread thread = new Thread(task, "monster-db");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the instance shared by this process, on the store from MonsterStore.open, in front
+	 * of the shared MonsterCache and sized
+	 * by the system properties monsters.async.threads, monsters.async.queue and
+	 * monsters.async.timeout (milliseconds)
+	 */
+	public static AsyncMonsters getShared(){
+		if (shared == null) {
+			synchronized (AsyncMonsters.class) {
+				if (shared == null) {
+					shared = new AsyncMonsters(MonsterStore::open,
+							Integer.getInteger("monsters.async.threads", DEFAULT_THREADS),
+							Integer.getInteger("monsters.async.queue", DEFAULT_QUEUE),
+							Long.getLong("monsters.async.timeout", DEFAULT_TIMEOUT),
+							MonsterCache.getShared());
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * @return every monster, see MonsterStore.getAllMonsters
+	 */
+	public CompletableFuture<ArrayList<Monster>> getAllMonsters(){
+		return submit((dbc) -> dbc.getAllMonsters());
+	}
+
+	/**
+	 * @param name the name of the monster
+	 * @return the monster, with no name if there is none, see MonsterStore.findMonster
+	 */
+	public CompletableFuture<Monster> findMonster(String name){
+		Monster cached = cache != null ? cache.peek(name) : null;
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return submit((dbc) -> {
+			long seen = cache != null ? cache.generation() : 0;
+			Monster monster = dbc.findMonster(name);
+			if (cache != null) {
+				cache.remember(monster, seen);
+			}
+			return monster;
+		});
+	}
+
+	/**
+	 * @param names the names of the monsters
+	 * @return the monsters found, by the name they were asked for, see MonsterStore.findMonsters
+	 */
+	public CompletableFuture<LinkedHashMap<String, Monster>> findMonsters(Collection<String> names){
+		LinkedHashMap<String, Monster> cached = new LinkedHashMap<String, Monster>();
+		ArrayList<String> missing = new ArrayList<String>();
+		for (String name : names) {
+			Monster monster = cache != null && name != null ? cache.peek(name) : null;
+			if (monster != null) {
+				cached.put(name, monster);
+			} else if (name != null) {
+				missing.add(name);
+			}
+		}
+		if (missing.isEmpty()) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return submit((dbc) -> {
+			long seen = cache != null ? cache.generation() : 0;
+			LinkedHashMap<String, Monster> loaded = dbc.findMonsters(missing);
+			if (cache != null) {
+				loaded.values().forEach((m) -> cache.remember(m, seen));
+			}
+			return MonsterCache.ordered(names, cached, loaded);
+		});
+	}
+
+	/**
+	 * @param monster the monster to save
+	 * @return true if it was saved
+	 */
+	public CompletableFuture<Boolean> addMonster(Monster monster){
+		return submit((dbc) -> written(monster, dbc.addMonster(monster)));
+	}
+
+	/**
+	 * @param monster the monster to save
+	 * @return true if it was saved
+	 */
+	public CompletableFuture<Boolean> updateMonster(Monster monster){
+		return submit((dbc) -> written(monster, dbc.updateMonster(monster)));
+	}
+
+	/**
+	 * @param name the name of the monster to delete
+	 * @return true if the delete was run
+	 */
+	public CompletableFuture<Boolean> deleteMonster(String name){
+		return submit((dbc) -> {
+			boolean deleted = dbc.deleteMonster(name);
+			if (cache != null) {
+				cache.invalidate(name);
+			}
+			return deleted;
+		});
+	}
+
+	/**
+	 * Stops taking calls, and cancels the ones that are waiting.
+	 */
+	public void close(){
+		executor.shutdownNow();
+	}
+
+	private boolean written(Monster monster, boolean saved){
+		return cache != null ? cache.written(monster, saved) : saved;
+	}
+
+	/**
+	 * Runs a call on the store it is given, which for MySQL costs nothing since connections come
+	 * from the shared pool.
+	 */
+	private <T> CompletableFuture<T> submit(Function<MonsterStore, T> call){
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		MonsterStore dbc = stores.get();
+		dbc.setQueryTimeout((int) Math.max(1, (timeout + 999) / 1000));
+
+		Future<?> task;
+		try {
+			task = executor.submit(() -> {
+				if (result.isDone()) {
+					return;
+				}
+				try {
+					result.complete(call.apply(dbc));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		result.orTimeout(timeout, TimeUnit.MILLISECONDS);
+		result.whenComplete((value, error) -> {
+			if (error != null) {
+				task.cancel(false);
+				executor.remove((Runnable) task);
+				dbc.cancel();
+			}
+		});
+		return result;
+	}
+
+}
@@ -0,0 +1,166 @@
+package monsters;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * Saves a monster catalog to a compact binary file, and reads it back in one read into a
+ * buffer, so the catalog can be had at startup without the database. The file is not mapped,
+ * since a mapped file cannot be replaced on Windows until the mapping is collected.
+ *
+ * The file starts with the int 0x4D434154 ("MCAT"), the format version, the checksum of the
+ * Monsters table the catalog was loaded with and the watermark to read the changes after it from
+ * (each Long.MIN_VALUE if it is not known), and the number of monsters. Files of format 1, from
+ * before the watermark was saved, have no watermark and can still be read. Every monster follows as its name, upper, lower and description, each written as
+ * its length in UTF-8 bytes and the bytes, or -1 for null.
+ */
+public class CatalogSnapshot {
+
+	private static final int MAGIC = 0x4D434154;
+	private static final int FORMAT = 2;
+	private static final int FORMAT_NO_WATERMARK = 1;
+	private static final long UNKNOWN = Long.MIN_VALUE;
+
+	private final MonsterCatalog catalog;
+	private final Long checksum;
+	private final Long watermark;
+
+	/**
+	 * @param catalog the catalog
+	 * @param checksum the checksum of the table it was loaded with, may be null
+	 */
+	public CatalogSnapshot(MonsterCatalog catalog, Long checksum){
+		this(catalog, checksum, null);
+	}
+
+	/**
+	 * @param catalog the catalog
+	 * @param checksum the checksum of the table it was loaded with, may be null
+	 * @param watermark the watermark of the store it was loaded at, may be null
+	 */
+	public CatalogSnapshot(MonsterCatalog catalog, Long checksum, Long watermark){
+		this.catalog = catalog;
+		this.checksum = checksum;
+		this.watermark = watermark;
+	}
+
+	/**
+	 * @return the catalog
+	 */
+	public MonsterCatalog getCatalog(){
+		return catalog;
+	}
+
+	/**
+	 * @return the checksum of the table the catalog was loaded with, or null if it is not known
+	 */
+	public Long getChecksum(){
+		return checksum;
+	}
+
+	/**
+	 * @return the watermark of the store the catalog was loaded at, or null if it is not known
+	 */
+	public Long getWatermark(){
+		return watermark;
+	}
+
+	/**
+	 * Reads a snapshot from a file.
+	 *
+	 * @param file the file
+	 * @return the snapshot
+	 * @throws IOException if the file could not be read or is not a snapshot
+	 */
+	public static CatalogSnapshot read(Path file) throws IOException {
+		try {
+			ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+			int format = in.getInt() == MAGIC ? in.getInt() : -1;
+			if (format != FORMAT && format != FORMAT_NO_WATERMARK) {
+				throw new IOException(file + " is not a monster snapshot");
+			}
+			long sum = in.getLong();
+			long mark = format == FORMAT ? in.getLong() : UNKNOWN;
+			int count = in.getInt();
+			if (count < 0) {
+				throw new IOException(file + " is damaged");
+			}
+			ArrayList<Monster> monsters = new ArrayList<Monster>(Math.min(count, in.remaining() / 16));
+			for (int i = 0; i < count; i++) {
+				monsters.add(new Monster(readString(in), readString(in), readString(in), readString(in)));
+			}
+			return new CatalogSnapshot(new MonsterCatalog(monsters), sum == UNKNOWN ? null : sum, mark == UNKNOWN ? null : mark);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException(file + " is damaged", e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a file. It is written to a file next to it first and moved in place,
+	 * so a reader never sees half a snapshot.
+	 *
+	 * @param file the file
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(Path file) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				out.writeLong(checksum == null ? UNKNOWN : checksum);
+				out.writeLong(watermark == null ? UNKNOWN : watermark);
+				out.writeInt(catalog.size());
+				for (Monster m : catalog.getAll()) {
+					writeString(out, m.getName());
+					writeString(out, m.getUpper());
+					writeString(out, m.getLower());
+					writeString(out, m.getDescription());
+				}
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static String readString(ByteBuffer in){
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+}
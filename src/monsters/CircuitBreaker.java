@@ -0,0 +1,161 @@
+package monsters;
+
+/**
+ * Stops calls to the database for a while once it keeps failing or keeps being slow, so callers
+ * fail straight away instead of each waiting out a timeout, and the database is given time to
+ * recover.
+ *
+ * The breaker is closed while calls go well. It opens when failureThreshold calls in a row fail,
+ * or when at least half of the last window calls took longer than slowCall milliseconds. While it
+ * is open every call is turned away for openTime milliseconds. Then one call is let through to
+ * try the database: if it goes well the breaker closes, and if not it opens again.
+ */
+public class CircuitBreaker {
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	public static final int DEFAULT_WINDOW = 20;
+	public static final long DEFAULT_SLOW_CALL = 2000;
+	public static final long DEFAULT_OPEN_TIME = 30000;
+
+	public enum State { CLOSED, OPEN, HALF_OPEN }
+
+	private final int failureThreshold;
+	private final long slowCall;
+	private final long openTime;
+	/** Whether each of the last calls was slow, as a ring. */
+	private final boolean[] slow;
+
+	private State state = State.CLOSED;
+	private int failuresInRow = 0;
+	private int recorded = 0;
+	private int next = 0;
+	private int slowCount = 0;
+	private long openedAt;
+	private boolean trying = false;
+
+	/**
+	 * @param failureThreshold failed calls in a row that open the breaker
+	 * @param window the number of recent calls checked for slowness
+	 * @param slowCall milliseconds after which a call is slow
+	 * @param openTime milliseconds calls are turned away once the breaker opens
+	 */
+	public CircuitBreaker(int failureThreshold, int window, long slowCall, long openTime){
+		this.failureThreshold = failureThreshold;
+		this.slow = new boolean[window];
+		this.slowCall = slowCall;
+		this.openTime = openTime;
+	}
+
+	/**
+	 * @return a breaker set up by the system properties monsters.breaker.failures,
+	 * monsters.breaker.window, monsters.breaker.slowCall and monsters.breaker.openTime (milliseconds)
+	 */
+	public static CircuitBreaker fromSystemProperties(){
+		return new CircuitBreaker(
+				Integer.getInteger("monsters.breaker.failures", DEFAULT_FAILURE_THRESHOLD),
+				Integer.getInteger("monsters.breaker.window", DEFAULT_WINDOW),
+				Long.getLong("monsters.breaker.slowCall", DEFAULT_SLOW_CALL),
+				Long.getLong("monsters.breaker.openTime", DEFAULT_OPEN_TIME));
+	}
+
+	/**
+	 * Asks whether a call can be made. Once the breaker has been open for openTime, the first call
+	 * asking is let through to try the database and the rest are turned away until it is done.
+	 *
+	 * @return true if the call can be made, and its outcome must then be recorded
+	 */
+	public synchronized boolean allowRequest(){
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openTime * 1000000) {
+			state = State.HALF_OPEN;
+			trying = false;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trying) {
+				return false;
+			}
+			trying = true;
+			return true;
+		}
+		return state == State.CLOSED;
+	}
+
+	/**
+	 * @param millis how long the call took
+	 */
+	public synchronized void recordSuccess(long millis){
+		failuresInRow = 0;
+		if (state == State.HALF_OPEN) {
+			close();
+			return;
+		}
+		if (record(millis >= slowCall) && state == State.CLOSED) {
+			open();
+		}
+	}
+
+	public synchronized void recordFailure(){
+		failuresInRow++;
+		if (state == State.HALF_OPEN) {
+			open();
+			return;
+		}
+		if ((record(true) || failuresInRow >= failureThreshold) && state == State.CLOSED) {
+			open();
+		}
+	}
+
+	/**
+	 * @return the state of the breaker, OPEN until a call asks to be let through after openTime
+	 */
+	public synchronized State getState(){
+		return state;
+	}
+
+	/**
+	 * @return milliseconds until a call will be let through to try the database, 0 if it is not open
+	 */
+	public synchronized long getRetryIn(){
+		if (state != State.OPEN) {
+			return 0;
+		}
+		return Math.max(0, openTime - (System.nanoTime() - openedAt) / 1000000);
+	}
+
+	/**
+	 * Adds a call to the window.
+	 *
+	 * @return true if the window is full and at least half of it is slow
+	 */
+	private boolean record(boolean wasSlow){
+		if (slow.length == 0) {
+			return false;
+		}
+		if (recorded == slow.length && slow[next]) {
+			slowCount--;
+		}
+		slow[next] = wasSlow;
+		if (wasSlow) {
+			slowCount++;
+		}
+		next = (next + 1) % slow.length;
+		recorded = Math.min(recorded + 1, slow.length);
+		return recorded == slow.length && slowCount * 2 >= slow.length;
+	}
+
+	private void open(){
+		state = State.OPEN;
+		openedAt = System.nanoTime();
+		trying = false;
+		System.out.println("The database is failing or slow, it will not be used for " + openTime + " ms");
+	}
+
+	private void close(){
+		state = State.CLOSED;
+		trying = false;
+		failuresInRow = 0;
+		recorded = 0;
+		next = 0;
+		slowCount = 0;
+	}
+
+}
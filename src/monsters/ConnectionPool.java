@@ -0,0 +1,287 @@
+package monsters;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of database connections, so queries reuse warm connections instead of
+ * opening a new one (a TCP and MySQL handshake) every time.
+ *
+ * At most maxSize connections are lent out at once; borrowers wait up to the borrow
+ * timeout for one to come back. At most maxIdle connections are kept while nobody uses them,
+ * and connections idle for longer than the idle timeout are closed the next time the pool is
+ * used. A connection that has been idle for a while is checked with isValid before it is lent.
+ *
+ * Connections are borrowed with borrow() and must be given back with release(), never closed.
+ *
+ * Every pool has a CircuitBreaker. While it is open, borrow fails straight away instead of
+ * waiting on a database that is down or overloaded. Failing to get or open a connection counts
+ * against it, and the users of a connection record how their calls went with getBreaker().
+ */
+public class ConnectionPool {
+
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final int DEFAULT_MAX_IDLE = 4;
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+	public static final long DEFAULT_VALIDATE_AFTER = 5000;
+	public static final long DEFAULT_BORROW_TIMEOUT = 10000;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private static final ConcurrentHashMap<String, ConnectionPool> POOLS = new ConcurrentHashMap<String, ConnectionPool>();
+	private static volatile boolean driverLoaded = false;
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final int maxSize;
+	private final int maxIdle;
+	private final long idleTimeout;
+	private final long validateAfter;
+	private final long borrowTimeout;
+	private final Semaphore permits;
+	private final CircuitBreaker breaker;
+	private final ArrayDeque<IdleConnection> idle = new ArrayDeque<IdleConnection>();
+	private boolean closed = false;
+
+	/**
+	 * Creates a pool. Nothing is opened until the first borrow.
+	 *
+	 * @param url the JDBC url of the database
+	 * @param username the user to log in as
+	 * @param password the password of the user
+	 * @param maxSize the most connections lent out at once
+	 * @param maxIdle the most connections kept open while nobody uses them
+	 * @param idleTimeout milliseconds after which an unused connection is closed
+	 * @param validateAfter milliseconds a connection can sit unused before it is checked on borrow
+	 * @param borrowTimeout milliseconds to wait for a connection when all of them are lent out
+	 */
+	public ConnectionPool(String url, String username, String password, int maxSize, int maxIdle, long idleTimeout, long validateAfter, long borrowTimeout){
+		if (maxSize < 1 || maxIdle < 0) {
+			throw new IllegalArgumentException("A pool needs at least 1 connection, got maxSize " + maxSize + " and maxIdle " + maxIdle);
+		}
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.maxSize = maxSize;
+		this.maxIdle = Math.min(maxIdle, maxSize);
+		this.idleTimeout = idleTimeout;
+		this.validateAfter = validateAfter;
+		this.borrowTimeout = borrowTimeout;
+		this.permits = new Semaphore(maxSize, true);
+		this.breaker = CircuitBreaker.fromSystemProperties();
+	}
+
+	/**
+	 * Returns the pool shared by everything in this process that logs in to a database as a user
+	 * with a password. A pool that was closed is replaced with a new one. Its sizes are read from the system properties monsters.pool.maxSize, monsters.pool.maxIdle,
+	 * monsters.pool.idleTimeout, monsters.pool.validateAfter and monsters.pool.borrowTimeout
+	 * (milliseconds) when it is first created, and fall back to the defaults.
+	 *
+	 * @param url the JDBC url of the database
+	 * @param username the user to log in as
+	 * @param password the password of the user
+	 * @return the shared pool
+	 */
+	public static ConnectionPool getPool(String url, String username, String password){
+		return POOLS.compute(url + "\n" + username + "\n" + password, (key, pool) -> pool != null && !pool.isClosed() ? pool
+				: new ConnectionPool(url, username, password,
+				Integer.getInteger("monsters.pool.maxSize", DEFAULT_MAX_SIZE),
+				Integer.getInteger("monsters.pool.maxIdle", DEFAULT_MAX_IDLE),
+				Long.getLong("monsters.pool.idleTimeout", DEFAULT_IDLE_TIMEOUT),
+				Long.getLong("monsters.pool.validateAfter", DEFAULT_VALIDATE_AFTER),
+				Long.getLong("monsters.pool.borrowTimeout", DEFAULT_BORROW_TIMEOUT)));
+	}
+
+	/**
+	 * Lends out a connection, reusing the most recently used idle one that is still good,
+	 * or opening a new one if there is none.
+	 *
+	 * @return an open connection, to be given back with release()
+	 * @throws SQLException if the pool is closed, the breaker is open, no connection came back within
+	 * the borrow timeout, or one could not be opened
+	 */
+	public Connection borrow() throws SQLException{
+		checkOpen();
+		if (!breaker.allowRequest()) {
+			throw new SQLException("The database is not being used for another " + breaker.getRetryIn() + " ms after failing or being slow");
+		}
+		try {
+			if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+				breaker.recordFailure();
+				throw new SQLException("Timed out after " + borrowTimeout + " ms waiting for a database connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			breaker.recordFailure();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		try {
+			checkOpen();
+			IdleConnection candidate;
+			while ((candidate = takeIdle()) != null) {
+				if (isUsable(candidate)) {
+					return candidate.connection;
+				}
+				closeQuietly(candidate.connection);
+			}
+			return open();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			breaker.recordFailure();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives a borrowed connection back. Broken connections, and connections beyond maxIdle, are closed.
+	 * Connections left in a transaction are rolled back and put back into auto-commit.
+	 *
+	 * @param conn the connection from borrow(), may be null if borrowing failed
+	 */
+	public void release(Connection conn){
+		if (conn == null) {
+			return;
+		}
+		try {
+			boolean keep = !conn.isClosed();
+			if (keep && !conn.getAutoCommit()) {
+				conn.rollback();
+				conn.setAutoCommit(true);
+			}
+			synchronized (this) {
+				evictIdle(System.currentTimeMillis());
+				if (keep && !closed && idle.size() < maxIdle) {
+					idle.addFirst(new IdleConnection(conn, System.currentTimeMillis()));
+					conn = null;
+				}
+			}
+		} catch (SQLException e) {
+			// fall through and close it
+		} finally {
+			closeQuietly(conn);
+			permits.release();
+		}
+	}
+
+	/**
+	 * Closes every idle connection. Connections still lent out are closed when they are released,
+	 * and borrow fails from now on.
+	 */
+	public void close(){
+		synchronized (this) {
+			closed = true;
+			while (!idle.isEmpty()) {
+				closeQuietly(idle.removeFirst().connection);
+			}
+		}
+	}
+
+	/**
+	 * @return true once close has been called
+	 */
+	public synchronized boolean isClosed(){
+		return closed;
+	}
+
+	/**
+	 * @return the breaker of this pool, to record how each call made with a borrowed connection went
+	 */
+	public CircuitBreaker getBreaker(){
+		return breaker;
+	}
+
+	/**
+	 * @return the number of connections kept open while nobody uses them
+	 */
+	public synchronized int getIdleCount(){
+		return idle.size();
+	}
+
+	/**
+	 * @return the number of connections lent out right now
+	 */
+	public int getActiveCount(){
+		return maxSize - permits.availablePermits();
+	}
+
+	private synchronized void checkOpen() throws SQLException{
+		if (closed) {
+			throw new SQLException("The connection pool is closed");
+		}
+	}
+
+	private synchronized IdleConnection takeIdle(){
+		evictIdle(System.currentTimeMillis());
+		return idle.pollFirst();
+	}
+
+	/**
+	 * Closes connections that have been idle for longer than the idle timeout. The oldest are at the end.
+	 */
+	private void evictIdle(long now){
+		Iterator<IdleConnection> oldestFirst = idle.descendingIterator();
+		while (oldestFirst.hasNext()) {
+			IdleConnection candidate = oldestFirst.next();
+			if (now - candidate.idleSince < idleTimeout) {
+				break;
+			}
+			oldestFirst.remove();
+			closeQuietly(candidate.connection);
+		}
+	}
+
+	private boolean isUsable(IdleConnection candidate){
+		try {
+			if (System.currentTimeMillis() - candidate.idleSince < validateAfter) {
+				return !candidate.connection.isClosed();
+			}
+			return candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private Connection open() throws SQLException{
+		if (!driverLoaded) {
+			try {
+				Class.forName(DBDetails.JDBC_DRIVER);
+			} catch (ClassNotFoundException e) {
+				throw new SQLException("JDBC driver " + DBDetails.JDBC_DRIVER + " is not on the classpath", e);
+			}
+			driverLoaded = true;
+		}
+		return DriverManager.getConnection(url, username, password);
+	}
+
+	private static void closeQuietly(Connection conn){
+		if (conn == null) {
+			return;
+		}
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			// nothing left to do with it
+		}
+	}
+
+	/**
+	 * A connection sitting in the pool, and when it was put there.
+	 */
+	private static class IdleConnection {
+		private final Connection connection;
+		private final long idleSince;
+
+		IdleConnection(Connection connection, long idleSince){
+			this.connection = connection;
+			this.idleSince = idleSince;
+		}
+	}
+
+}
@@ -1,16 +1,47 @@
 package monsters;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.sql.*;
 
 
-public class DBConnection {
+public class DBConnection implements MonsterStore {
 	
-	private Connection conn = null;
-    private Statement stmt = null;
-    private ResultSet rs = null;
+	/** The most names looked up by one query in findMonsters. */
+	public static final int FIND_CHUNK = 500;
+	/** The fetch size that makes MySQL send rows one at a time as they are read, instead of all at once. */
+	public static final int STREAM_ROWS = Integer.MIN_VALUE;
+	/** The number of monsters sent and committed together by importMonsters when no size is given. */
+	public static final int IMPORT_BATCH = 1000;
+
+	/** Milliseconds before a watermark that changesSince reads again, for rows written by transactions still open at it. */
+	public static final long SYNC_OVERLAP = 5000;
+	/** Seconds a statement may run when monsters.db.queryTimeout is not set, so a stuck database cannot hold a caller forever. */
+	public static final int DEFAULT_QUERY_TIMEOUT = 10;
+
+	private static final String INSERT = "INSERT INTO Monsters(name,upper,lower,description) VALUES(?,?,?,?);";
+	private static final String CHANGED_SINCE = "SELECT * FROM Monsters WHERE updated_at >= ?;";
+	private static final String DELETED_SINCE = "SELECT name FROM MonsterDeletes WHERE deleted_at >= ?;";
+
     private String username;
     private String password;
+    private ConnectionPool pool;
+    private int queryTimeout = Integer.getInteger("monsters.db.queryTimeout", DEFAULT_QUERY_TIMEOUT);
+    private volatile Statement running;
+    /** Whether the Monsters table has an updated_at column and there is a MonsterDeletes table, null until it has been checked. */
+    private volatile Boolean tracksChanges;
+
+	/** The call running on this thread, to tell the breaker of the pool how it went when it is released. */
+	private static final ThreadLocal<Call> CALL = ThreadLocal.withInitial(Call::new);
 	
 
 	
@@ -23,23 +54,125 @@ public class DBConnection {
 	public DBConnection(String u, String p){
 		username = u;
 		password = p; 
+		pool = ConnectionPool.getPool(DBDetails.DB_URL, u, p);
 	}
 	
 	/**
-	 * NOT FOR GENERAL USE. Placed in a separate method to ensure opening and closing of the connection is handled
-	 * every time a request is made, rather than having a connection always open and relying 
-	 * on students to close it.
+	 * NOT FOR GENERAL USE. Borrows a connection from the pool shared by every DBConnection for this user.
+	 * Every request borrows its own connection and gives it back with release(), so a DBConnection
+	 * can be used from several threads and connections stay warm between requests.
+	 * How long the request takes, from here to release(), counts towards the breaker of the pool.
+	 *
+	 * @return a connection to give back with release() on the same thread
+	 * @throws SQLException if no connection could be had, or the breaker of the pool is open
+	 */
+	public Connection connect() throws SQLException{
+		Connection conn = pool.borrow();
+		CALL.get().start(true);
+		return conn;
+    }
+
+	/**
+	 * NOT FOR GENERAL USE. Borrows a connection like connect() for a request that takes as long as
+	 * there are monsters, so only whether it fails counts towards the breaker, not how long it takes.
+	 */
+	private Connection connectUntimed() throws SQLException{
+		Connection conn = pool.borrow();
+		CALL.get().start(false);
+		return conn;
+	}
+
+	/**
+	 * NOT FOR GENERAL USE. Gives a connection from connect() back to the pool, and tells the
+	 * breaker of the pool whether the request failed, or how long it took.
+	 *
+	 * @param conn the connection, may be null
 	 */
-	public void connect(){
-		//Initialize the connection
-		try{
-			Class.forName(DBDetails.JDBC_DRIVER);			
-		    conn = DriverManager.getConnection(DBDetails.DB_URL,username,password);
+	public void release(Connection conn){
+		running = null;
+		if (conn != null) {
+			CALL.get().finish(pool.getBreaker());
 		}
-		catch (Exception e){
+		pool.release(conn);
+	}
+
+	/**
+	 * NOT FOR GENERAL USE. Prints a problem with the request running on this thread, see failing.
+	 */
+	private static void failed(Exception e){
+		System.out.println(e);
+		failing(e);
+	}
+
+	/**
+	 * NOT FOR GENERAL USE. Marks the request running on this thread as failed, so release() counts
+	 * it against the breaker, if the problem is the database not answering in time or the
+	 * connection breaking. The database turning down a statement, such as for a name that is
+	 * already taken, shows it is up and counts as a success.
+	 */
+	private static void failing(Exception e){
+		if (e instanceof SQLException && (!(e instanceof SQLNonTransientException) || e instanceof SQLNonTransientConnectionException)) {
+			CALL.get().failed = true;
+		}
+	}
+
+	/**
+	 * Sets how long a statement may run before the database gives up on it.
+	 *
+	 * @param seconds the time in seconds, 0 for no limit
+	 */
+	public void setQueryTimeout(int seconds){
+		queryTimeout = seconds;
+	}
+
+	/**
+	 * @return how long a statement may run in seconds, 0 for no limit
+	 */
+	public int getQueryTimeout(){
+		return queryTimeout;
+	}
+
+	/**
+	 * Asks the database to stop the statement this DBConnection is running, from another thread.
+	 * The call running it fails the way it does when the database cannot be reached.
+	 * Does nothing if no statement is running.
+	 */
+	public void cancel(){
+		Statement stmt = running;
+		if (stmt == null) {
+			return;
+		}
+		try {
+			stmt.cancel();
+		} catch (SQLException e) {
 			System.out.println(e);
 		}
-    }
+	}
+
+	/**
+	 * NOT FOR GENERAL USE. Creates a statement with the query timeout, which cancel() can stop
+	 * until the connection is released.
+	 */
+	private Statement createStatement(Connection conn) throws SQLException{
+		Statement stmt = conn.createStatement();
+		if (queryTimeout > 0) {
+			stmt.setQueryTimeout(queryTimeout);
+		}
+		running = stmt;
+		return stmt;
+	}
+
+	/**
+	 * NOT FOR GENERAL USE. Prepares a statement the same way createStatement does.
+	 */
+	private PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException{
+		PreparedStatement stmt = conn.prepareStatement(sql);
+		if (queryTimeout > 0) {
+			stmt.setQueryTimeout(queryTimeout);
+		}
+		running = stmt;
+		return stmt;
+	}
     
     
 	
@@ -47,132 +180,497 @@ public class DBConnection {
 	 * Returns a list of strings, where each string represents a full course. You will need to parse this string to rebuild the course
 	 * 
 	 * @return List of Strings representing every available course
+	 * @throws MonsterStoreException if the monsters could not be read
 	 */
 	public ArrayList<Monster> getAllMonsters(){
 		ArrayList<Monster> mList = new ArrayList<Monster>();		
-        String sql = "SELECT * FROM Monsters;";
-		connect();
+		Connection conn = null;
+
+		try {
+			conn = connectUntimed();
+			readMonsters(conn, mList::add, STREAM_ROWS);
+		}
+		catch (SQLException e){
+			failing(e);
+			throw new MonsterStoreException("Could not read the monsters", e);
+		}
+		finally{
+			release(conn);
+		}
+		return mList;
+	}
+
+	/**
+	 * Hands every monster to an action as it is read, so the whole table never has to be in memory,
+	 * and the first monsters can be used before the last have arrived. MySQL sends the rows one
+	 * at a time; the connection is busy until the last has been read.
+	 * 
+	 * @param action what to do with each monster
+	 * @return true if every monster was read
+	 */
+	public boolean forEachMonster(Consumer<Monster> action){
+		return forEachMonster(action, STREAM_ROWS);
+	}
+
+	/**
+	 * Hands every monster to an action as it is read, fetching them in groups of fetchSize rows.
+	 * MySQL only fetches groups when the url has useCursorFetch=true; otherwise pass STREAM_ROWS.
+	 * 
+	 * @param action what to do with each monster
+	 * @param fetchSize the number of rows fetched at a time, or STREAM_ROWS
+	 * @return true if every monster was read
+	 */
+	public boolean forEachMonster(Consumer<Monster> action, int fetchSize){
+		Connection conn = null;
         
         try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-            
-			while(rs.next()){
-				mList.add(new Monster(rs.getString("name"), rs.getString("upper"), rs.getString("lower"), rs.getString("description")));
-			}
-
+			conn = connectUntimed();
+			readMonsters(conn, action, fetchSize);
+			return true;
 		}
         
         //catch any issues along the way
 		catch (Exception e){
-			System.out.println(e);
+			failed(e);
+			return false;
 		}
-		//close any/all connections
+		//give the connection back
 		finally{
-			try{
-				stmt.close();
-				conn.close();
-			}catch(Exception e){
-				e.printStackTrace();
+			release(conn);
+		}
+	}
+
+	private void readMonsters(Connection conn, Consumer<Monster> action, int fetchSize) throws SQLException{
+		try (Statement stmt = createStatement(conn)) {
+			stmt.setFetchSize(fetchSize);
+			try (ResultSet rs = stmt.executeQuery("SELECT * FROM Monsters;")) {
+				while(rs.next()){
+					action.accept(toMonster(rs));
+				}
 			}
 		}
+	}
 
-		return mList;
+	/**
+	 * Gives every monster as a stream that reads them as they are used, the way forEachMonster does.
+	 * The stream holds a connection until it is closed, so use it in a try-with-resources.
+	 * If the database fails part way, the problem is printed and the stream ends early.
+	 * Only the query counts towards the breaker, since the rows are read at the pace of the stream,
+	 * and a row that could not be read counts against it.
+	 * 
+	 * @return the monsters, to be closed once used
+	 */
+	public Stream<Monster> streamMonsters(){
+		Connection conn = null;
+		Statement stmt = null;
+		try {
+			conn = connect();
+			stmt = createStatement(conn);
+			stmt.setFetchSize(STREAM_ROWS);
+			ResultSet rs = stmt.executeQuery("SELECT * FROM Monsters;");
+			CALL.get().finish(pool.getBreaker());
+
+			Connection open = conn;
+			Statement query = stmt;
+			Spliterator<Monster> rows = new Spliterators.AbstractSpliterator<Monster>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Monster> action){
+					try {
+						if (!rs.next()) {
+							return false;
+						}
+						action.accept(toMonster(rs));
+						return true;
+					} catch (SQLException e) {
+						System.out.println(e);
+						pool.getBreaker().recordFailure();
+						return false;
+					}
+				}
+			};
+			return StreamSupport.stream(rows, false).onClose(() -> {
+				try {
+					query.close();
+				} catch (SQLException e) {
+					System.out.println(e);
+				}
+				running = null;
+				pool.release(open);
+			});
+		}
+		catch (Exception e){
+			failed(e);
+			try {
+				if (stmt != null) {
+					stmt.close();
+				}
+			} catch (SQLException closing) {
+				System.out.println(closing);
+			}
+			release(conn);
+			return Stream.empty();
+		}
+	}
+
+	private static Monster toMonster(ResultSet rs) throws SQLException{
+		return new Monster(rs.getString("name"), rs.getString("upper"), rs.getString("lower"), rs.getString("description"));
 	}
 	
 	
 
 
 	public void addMonster(String name, String upper, String lower, String description){
-		String sql = "INSERT INTO Monsters(name,upper,lower,description) VALUES(" + "'" + name + "','" + upper + "','" + lower + "','" + description + "');";
-
-		dbUpdate(sql);
+		dbUpdate(INSERT, name, upper, lower, description);
 	}
 	
 	/**
 	 * Saves information to the database. Accepts a Monster object only. 
 	 * 
 	 * @param s A Monster object. Its contents will be saved to the database.
+	 * @return true if it was saved
 	 */
-	public void addMonster(Monster monster){
+	public boolean addMonster(Monster monster){
 		String name = monster.getName();
 		String upper = monster.getUpper();
 		String lower = monster.getLower();
 		String description = monster.getDescription();
 			
-		String sql = "INSERT INTO Monsters(name,upper,lower,description) VALUES(" + "'" + name + "','" + upper + "','" + lower + "','" + description + "');";
-		dbUpdate(sql);
+		return dbUpdate(INSERT, name, upper, lower, description);
      }
+
+	/**
+	 * Saves many new monsters, sending them batchSize at a time with one prepared statement on one
+	 * connection. Every batch is its own transaction, so if a batch fails the monsters in it are
+	 * not saved, the ones in earlier batches stay saved, and nothing after it is sent.
+	 * 
+	 * @param monsters the monsters, read one at a time so they never all have to be in memory
+	 * @param batchSize the number of monsters sent and committed together
+	 * @return the number of monsters saved
+	 */
+	public int importMonsters(Iterator<Monster> monsters, int batchSize){
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size has to be at least 1, got " + batchSize);
+		}
+		int saved = 0;
+		Connection conn = null;
+
+		try {
+			conn = connectUntimed();
+			conn.setAutoCommit(false);
+			try (PreparedStatement stmt = prepareStatement(conn, INSERT)) {
+				int pending = 0;
+				while (monsters.hasNext()) {
+					Monster monster = monsters.next();
+					stmt.setString(1, monster.getName());
+					stmt.setString(2, monster.getUpper());
+					stmt.setString(3, monster.getLower());
+					stmt.setString(4, monster.getDescription());
+					stmt.addBatch();
+					pending++;
+					if (pending == batchSize || !monsters.hasNext()) {
+						stmt.executeBatch();
+						conn.commit();
+						saved += pending;
+						pending = 0;
+					}
+				}
+			}
+		}
+
+		//catch any issues with the database, the batch being sent is rolled back when the connection is released
+		//a monster that could not be read is passed on to the caller after the same rollback
+		catch (SQLException e){
+			failed(e);
+		}
+		//give the connection back
+		finally{
+			release(conn);
+		}
+		return saved;
+	}
 	
 
-	public void updateMonster(Monster monster){
+	/**
+	 * Saves the changes to a monster, found by its name.
+	 * 
+	 * @param monster the monster
+	 * @return true if it was saved
+	 */
+	public boolean updateMonster(Monster monster){
 
 		String name = monster.getName();
 		String upper = monster.getUpper();
 		String lower = monster.getLower();
 		String description = monster.getDescription();
-		String sql = String.format("UPDATE Monsters set name = \"%s\", upper = \"%s\", lower = \"%s\", description = \"%s\" where name= \"%s\"", name, upper, lower, description, name);
- 		System.out.println(sql);
- 		dbUpdate(sql);
+		String sql = "UPDATE Monsters set name = ?, upper = ?, lower = ?, description = ? where name = ?;";
+ 		return dbUpdate(sql, name, upper, lower, description, name);
 
 
 	}
 	
+	/**
+	 * Asks the database for a checksum of the Monsters table, which changes whenever a monster
+	 * is added, changed or deleted. On InnoDB this reads every row, descriptions and all, so it
+	 * is only worth running when the table cannot give its changes with changesSince.
+	 * 
+	 * @return the checksum, or null if it could not be had
+	 */
+	public Long checksumMonsters(){
+		Connection conn = null;
+
+		try {
+			conn = connect();
+			try (Statement stmt = createStatement(conn); ResultSet rs = stmt.executeQuery("CHECKSUM TABLE Monsters;")) {
+				if (rs.next()) {
+					long checksum = rs.getLong("Checksum");
+					return rs.wasNull() ? null : checksum;
+				}
+			}
+		}
+		catch (Exception e){
+			failed(e);
+		}
+		finally{
+			release(conn);
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the time on the database, to read the monsters changed after it with changesSince.
+	 * This needs a column that holds when each row was last written, which sql/add_updated_at.sql
+	 * adds to the Monsters table, and a table of the monsters deleted, which sql/add_monster_deletes.sql
+	 * adds. Whether the database has them is checked once, and without them every reload reads the
+	 * whole table.
+	 *
+	 * @return the time in milliseconds, or null if the changes cannot be read or the database could not be reached
+	 */
+	public Long syncWatermark(){
+		if (!tracksChanges()) {
+			return null;
+		}
+		Connection conn = null;
+
+		try {
+			conn = connect();
+			try (Statement stmt = createStatement(conn); ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP(3);")) {
+				if (rs.next()) {
+					return rs.getTimestamp(1).getTime();
+				}
+			}
+		}
+		catch (Exception e){
+			failed(e);
+		}
+		finally{
+			release(conn);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the monsters whose updated_at, and the names of the deleted monsters whose deleted_at,
+	 * is at most SYNC_OVERLAP milliseconds before the watermark or after it, in one transaction so
+	 * they agree. Both columns are indexed, so only the rows that changed are read.
+	 *
+	 * @param watermark from syncWatermark, or from the last changes read
+	 * @return the changes, or null if they could not be read
+	 */
+	public MonsterChanges changesSince(long watermark){
+		if (!tracksChanges()) {
+			return null;
+		}
+		Connection conn = null;
+
+		try {
+			conn = connect();
+			conn.setAutoCommit(false);
+			long now;
+			try (Statement stmt = createStatement(conn); ResultSet rs = stmt.executeQuery("SELECT CURRENT_TIMESTAMP(3);")) {
+				rs.next();
+				now = rs.getTimestamp(1).getTime();
+			}
+			Timestamp since = new Timestamp(watermark - SYNC_OVERLAP);
+			ArrayList<Monster> changed = new ArrayList<Monster>();
+			try (PreparedStatement stmt = prepareStatement(conn, CHANGED_SINCE)) {
+				stmt.setTimestamp(1, since);
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						changed.add(toMonster(rs));
+					}
+				}
+			}
+			ArrayList<String> deleted = new ArrayList<String>();
+			try (PreparedStatement stmt = prepareStatement(conn, DELETED_SINCE)) {
+				stmt.setTimestamp(1, since);
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						deleted.add(rs.getString(1));
+					}
+				}
+			}
+			conn.commit();
+			return new MonsterChanges(changed, deleted, now);
+		}
+		catch (Exception e){
+			failed(e);
+			return null;
+		}
+		finally{
+			release(conn);
+		}
+	}
+
+	/**
+	 * Looks in the metadata of the database for the updated_at column and the MonsterDeletes table
+	 * the first time it is asked, and remembers the answer once the database could be asked.
+	 *
+	 * @return true if the Monsters table has an updated_at column and there is a MonsterDeletes table
+	 */
+	private boolean tracksChanges(){
+		Boolean tracks = tracksChanges;
+		if (tracks != null) {
+			return tracks;
+		}
+		Connection conn = null;
+
+		try {
+			conn = connect();
+			DatabaseMetaData meta = conn.getMetaData();
+			try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, "Monsters", "updated_at")) {
+				tracks = rs.next();
+			}
+			if (tracks) {
+				try (ResultSet rs = meta.getTables(conn.getCatalog(), null, "MonsterDeletes", null)) {
+					tracks = rs.next();
+				}
+			}
+			tracksChanges = tracks;
+			return tracks;
+		}
+		catch (Exception e){
+			failed(e);
+			return false;
+		}
+		finally{
+			release(conn);
+		}
+	}
+
 	/**
 	 * Loads and returns a Monster object, containing any available information.
 	 * 
 	 * @param id The name of the monster
 	 *
-	 * @return Monster object 
+	 * @return Monster object, with no name if there is none
+	 * @throws MonsterStoreException if the database could not be asked
 	 */
 
 	public Monster findMonster(String name){
 		Monster monster = new Monster(); //what will be returned       
-		String sql = "SELECT * FROM Monsters WHERE name = '" + name + "';";		
-        connect();
+		Connection conn = null;
         
         try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(sql);
-
-			while(rs.next()){
-				monster.setName(rs.getString("name"));
-				monster.setUpperBound(rs.getString("upper"));
-				monster.setLowerBound(rs.getString("lower"));
-				monster.setDescription(rs.getString("description"));
+			conn = connect();
+			try (PreparedStatement stmt = prepareStatement(conn, "SELECT * FROM Monsters WHERE name = ?;")) {
+				stmt.setString(1, name);
+				try (ResultSet rs = stmt.executeQuery()) {
+					while(rs.next()){
+						monster.setName(rs.getString("name"));
+						monster.setUpperBound(rs.getString("upper"));
+						monster.setLowerBound(rs.getString("lower"));
+						monster.setDescription(rs.getString("description"));
+					}
+				}
 			}
-
-			conn.close();
-			stmt.close();
-			rs.close();
 		}
         
-        //catch any issues along the way
-		catch (Exception e){
-			System.out.println(e);
+        //the database could not be asked, which is not the same as it not having the monster
+		catch (SQLException e){
+			failing(e);
+			throw new MonsterStoreException("Could not find " + name, e);
 		}
-		//close any/all connections
+		//give the connection back
 		finally{
-			try{
-				stmt.close();
-				conn.close();
-			}catch(Exception e){
-				e.printStackTrace();
-			}
+			release(conn);
 		}
 
 		return monster;
 	}
 	
+	/**
+	 * Loads several monsters by name with one query, or one per FIND_CHUNK names, on one connection.
+	 * Names are matched the way the database matches them, so findMonster and findMonsters find the same monsters.
+	 * 
+	 * @param names the names of the monsters, repeats and nulls are skipped
+	 *
+	 * @return the monsters found, by the name they were asked for, in the order they were asked for
+	 * @throws MonsterStoreException if the database could not be asked
+	 */
+	public LinkedHashMap<String, Monster> findMonsters(Collection<String> names){
+		LinkedHashMap<String, Monster> found = new LinkedHashMap<String, Monster>();
+		ArrayList<String> wanted = new ArrayList<String>(new LinkedHashSet<String>(names));
+		wanted.remove(null);
+		if (wanted.isEmpty()) {
+			return found;
+		}
+
+		TreeMap<String, Monster> rows = new TreeMap<String, Monster>(String.CASE_INSENSITIVE_ORDER);
+		Connection conn = null;
+
+		try {
+			conn = connect();
+			for (int start = 0; start < wanted.size(); start += FIND_CHUNK) {
+				int count = Math.min(FIND_CHUNK, wanted.size() - start);
+				StringBuilder sql = new StringBuilder("SELECT * FROM Monsters WHERE name IN (?");
+				for (int i = 1; i < count; i++) {
+					sql.append(",?");
+				}
+				sql.append(");");
+
+				try (PreparedStatement stmt = prepareStatement(conn, sql.toString())) {
+					for (int i = 0; i < count; i++) {
+						stmt.setString(i + 1, wanted.get(start + i));
+					}
+					try (ResultSet rs = stmt.executeQuery()) {
+						while(rs.next()){
+							Monster monster = toMonster(rs);
+							rows.put(monster.getName(), monster);
+						}
+					}
+				}
+			}
+		}
+
+		//the database could not be asked, rather than some monsters seeming to be missing
+		catch (SQLException e){
+			failing(e);
+			throw new MonsterStoreException("Could not find " + wanted.size() + " monsters", e);
+		}
+		//give the connection back
+		finally{
+			release(conn);
+		}
+
+		for (String name : wanted) {
+			Monster monster = rows.get(name);
+			if (monster != null) {
+				found.put(name, monster);
+			}
+		}
+		return found;
+	}
+
 	/**
 	 * Delete a monster
 	 * 
 	 * @param name 
+	 * @return true if the delete was run
 	 */
-	public void deleteMonster(String name){
+	public boolean deleteMonster(String name){
 
-		String sql = "DELETE FROM Monsters WHERE name = '" + name + "';" ;
-		dbUpdate(sql);
+		String sql = "DELETE FROM Monsters WHERE name = ?;" ;
+		return dbUpdate(sql, name);
 	}
 
 	
@@ -198,27 +696,56 @@ public class DBConnection {
         dbUpdate(command);
     }
 	
+	/**
+	 * NOT FOR GENERAL USE. Runs a prepared update with its parameters, so values are never pasted into the SQL.
+	 *
+	 * @return true if the update was run
+	 */
+	private boolean dbUpdate(String sql, String... params){
+		Connection conn = null;
+		try {
+			conn = connect();
+			try (PreparedStatement stmt = prepareStatement(conn, sql)) {
+				for (int i = 0; i < params.length; i++) {
+					stmt.setString(i + 1, params[i]);
+				}
+				stmt.executeUpdate();
+			}
+			return true;
+		}
+		//catch any issues along the way
+		catch (Exception e){
+			failed(e);
+			return false;
+		}
+		//give the connection back
+		finally{
+			release(conn);
+		}
+	}
+
 /** 
 	 * NOT FOR GENERAL USE. Master mutator method for db updates
+	 *
+	 * @return true if the update was run
 	 */
-    public void dbUpdate(String sql){
-        connect();
+    public boolean dbUpdate(String sql){
+		Connection conn = null;
         try {
-            stmt = conn.createStatement();
-			stmt.executeUpdate(sql);
+			conn = connect();
+			try (Statement stmt = createStatement(conn)) {
+				stmt.executeUpdate(sql);
+			}
+			return true;
         }
 		//catch any issues along the way
 		catch (Exception e){
-			System.out.println(e);
+			failed(e);
+			return false;
 		}
-		//close any/all connections
+		//give the connection back
 		finally{
-			try{
-				stmt.close();
-				conn.close();
-			}catch(Exception e){
-				e.printStackTrace();
-			}
+			release(conn);
 		}
     }
 
@@ -232,28 +759,55 @@ public class DBConnection {
 	 */
     public void customExecute(String command){
 		System.out.println("Executing Custom Execute Command: " + command);
-        connect();
+		Connection conn = null;
         
         try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(command);
-
-			while (rs.next()){
-				System.out.println(rs.toString());
+			conn = connect();
+			try (Statement stmt = createStatement(conn); ResultSet rs = stmt.executeQuery(command)) {
+				while (rs.next()){
+					System.out.println(rs.toString());
+				}
 			}
         }
 
         //catch any issues along the way
 		catch (Exception e){
-			System.out.println(e);
+			failed(e);
 		}
-		//close any/all connections
+		//give the connection back
 		finally{
-			try{
-				stmt.close();
-				conn.close();
-			}catch(Exception e){
-				e.printStackTrace();
+			release(conn);
+		}
+	}
+
+	/**
+	 * A request running on a thread: when it got its connection, and whether it failed.
+	 */
+	private static class Call {
+		private boolean running = false;
+		private boolean timed;
+		private boolean failed;
+		private long start;
+
+		void start(boolean timed){
+			this.running = true;
+			this.timed = timed;
+			this.failed = false;
+			this.start = System.nanoTime();
+		}
+
+		/**
+		 * Tells the breaker how the request went, once.
+		 */
+		void finish(CircuitBreaker breaker){
+			if (!running) {
+				return;
+			}
+			running = false;
+			if (failed) {
+				breaker.recordFailure();
+			} else {
+				breaker.recordSuccess(timed ? (System.nanoTime() - start) / 1000000 : 0);
 			}
 		}
 	}
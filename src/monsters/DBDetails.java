@@ -17,7 +17,7 @@ DO NOT USE YOUR NORMAL PASSWORD*/
 
 /*Change nothing here */
    public static final String JDBC_DRIVER = "com.mysql.cj.jdbc.Driver";  
-   public static final String DB_URL = String.format("jdbc:mysql://dursley.socs.uoguelph.ca:3306/%s?useLegacyDatetimeCode=false&serverTimezone=America/New_York",username);
+   public static final String DB_URL = String.format("jdbc:mysql://dursley.socs.uoguelph.ca:3306/%s?useLegacyDatetimeCode=false&serverTimezone=America/New_York&rewriteBatchedStatements=true&connectTimeout=5000&socketTimeout=30000",username);
 
 
 
@@ -0,0 +1,401 @@
+package monsters;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A monster store kept in a file on this machine, for runs that should not need the database.
+ *
+ * Every monster is held in memory, by its name ignoring case the way MySQL compares names, so
+ * reads never touch the disk. Every change is appended to the file as a record, and the file is
+ * read back from the start when the store is opened. Once most of the records are out of date the
+ * file is written again with only the monsters in it. A record cut short by a crash is dropped
+ * when the store is opened.
+ *
+ * A record is one byte for its kind, then for a PUT the name, upper, lower and description, and
+ * for a DELETE the name, each written as its length in UTF-8 bytes and the bytes, or -1 for null.
+ * A BATCH record holds the number of PUT records after it that are only kept if all of them are there.
+ */
+public class LocalMonsterStore implements MonsterStore {
+
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+	private static final byte BATCH = 3;
+	private static final int MIN_COMPACT = 1024;
+
+	private static final ConcurrentHashMap<Path, LocalMonsterStore> STORES = new ConcurrentHashMap<Path, LocalMonsterStore>();
+
+	private final Path file;
+	private final LinkedHashMap<String, Monster> monsters = new LinkedHashMap<String, Monster>();
+	private DataOutputStream log;
+	private int records = 0;
+	private long checksum = 0;
+
+	/**
+	 * Opens a store, reading every monster in its file, which is made if it is not there.
+	 * Use open(Path) instead so a file is only ever opened once in a process.
+	 *
+	 * @param file the file
+	 * @throws IOException if the file could not be read or written
+	 */
+	public LocalMonsterStore(Path file) throws IOException {
+		this.file = file;
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		replay();
+		log = openLog();
+	}
+
+	/**
+	 * @param file the file
+	 * @return the store kept in the file, opened once and shared by everything in this process
+	 * @throws UncheckedIOException if the file could not be read or written
+	 */
+	public static LocalMonsterStore open(Path file){
+		return STORES.computeIfAbsent(file.toAbsolutePath().normalize(), (path) -> {
+			try {
+				return new LocalMonsterStore(path);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public synchronized ArrayList<Monster> getAllMonsters(){
+		return new ArrayList<Monster>(monsters.values());
+	}
+
+	public boolean forEachMonster(Consumer<Monster> action){
+		getAllMonsters().forEach(action);
+		return true;
+	}
+
+	public synchronized Monster findMonster(String name){
+		Monster monster = name != null ? monsters.get(key(name)) : null;
+		return monster != null ? monster : new Monster();
+	}
+
+	public synchronized LinkedHashMap<String, Monster> findMonsters(Collection<String> names){
+		LinkedHashMap<String, Monster> found = new LinkedHashMap<String, Monster>();
+		for (String name : new LinkedHashSet<String>(names)) {
+			Monster monster = name != null ? monsters.get(key(name)) : null;
+			if (monster != null) {
+				found.put(name, monster);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Saves a new monster. A monster that has no name, or the name of one already saved, is not saved.
+	 *
+	 * @param monster the monster
+	 * @return true if it was saved
+	 */
+	public synchronized boolean addMonster(Monster monster){
+		if (monster.getName() == null || monsters.containsKey(key(monster.getName()))) {
+			return false;
+		}
+		if (!write(recordOf(PUT, monster), 1)) {
+			return false;
+		}
+		put(monster);
+		compactIfStale();
+		return true;
+	}
+
+	/**
+	 * Saves the monsters batchSize at a time, each batch as one write to the file. A batch holding
+	 * a monster with no name or the name of one already saved is not saved, and nothing after it is.
+	 *
+	 * @param monsters the monsters
+	 * @param batchSize the number of monsters saved together
+	 * @return the number of monsters saved
+	 */
+	public int importMonsters(Iterator<Monster> monsters, int batchSize){
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size has to be at least 1, got " + batchSize);
+		}
+		int saved = 0;
+		ArrayList<Monster> batch = new ArrayList<Monster>(Math.min(batchSize, 4096));
+		while (monsters.hasNext()) {
+			batch.add(monsters.next());
+			if (batch.size() == batchSize || !monsters.hasNext()) {
+				if (!addBatch(batch)) {
+					break;
+				}
+				saved += batch.size();
+				batch.clear();
+			}
+		}
+		return saved;
+	}
+
+	public synchronized boolean updateMonster(Monster monster){
+		if (monster.getName() == null || !monsters.containsKey(key(monster.getName()))) {
+			return false;
+		}
+		if (!write(recordOf(PUT, monster), 1)) {
+			return false;
+		}
+		put(monster);
+		compactIfStale();
+		return true;
+	}
+
+	public synchronized boolean deleteMonster(String name){
+		if (name == null || !monsters.containsKey(key(name))) {
+			return true;
+		}
+		Monster gone = new Monster();
+		gone.setName(name);
+		if (!write(recordOf(DELETE, gone), 1)) {
+			return false;
+		}
+		remove(name);
+		compactIfStale();
+		return true;
+	}
+
+	public synchronized Long checksumMonsters(){
+		return checksum;
+	}
+
+	/**
+	 * @return the number of monsters
+	 */
+	public synchronized int size(){
+		return monsters.size();
+	}
+
+	/**
+	 * Writes the file again with only the monsters in it, leaving out records that are out of date.
+	 *
+	 * @throws IOException if the file could not be written, in which case the old one is kept
+	 */
+	public synchronized void compact() throws IOException {
+		Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				for (Monster m : monsters.values()) {
+					out.write(recordOf(PUT, m));
+				}
+			}
+			log.close();
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			records = monsters.size();
+		} finally {
+			Files.deleteIfExists(temp);
+			log = openLog();
+		}
+	}
+
+	/**
+	 * Closes the file. The store can no longer be changed.
+	 *
+	 * @throws IOException if the file could not be closed
+	 */
+	public synchronized void close() throws IOException {
+		STORES.remove(file.toAbsolutePath().normalize(), this);
+		log.close();
+	}
+
+	private synchronized boolean addBatch(ArrayList<Monster> batch){
+		LinkedHashSet<String> names = new LinkedHashSet<String>();
+		for (Monster m : batch) {
+			if (m.getName() == null || monsters.containsKey(key(m.getName())) || !names.add(key(m.getName()))) {
+				return false;
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(BATCH);
+			out.writeInt(batch.size());
+			for (Monster m : batch) {
+				out.write(recordOf(PUT, m));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (!write(bytes.toByteArray(), batch.size())) {
+			return false;
+		}
+		for (Monster m : batch) {
+			put(m);
+		}
+		compactIfStale();
+		return true;
+	}
+
+	/**
+	 * Appends records to the file.
+	 */
+	private boolean write(byte[] bytes, int count){
+		try {
+			log.write(bytes);
+			log.flush();
+			records += count;
+			return true;
+		} catch (IOException e) {
+			System.out.println(e);
+			return false;
+		}
+	}
+
+	/**
+	 * Writes the file again if most of its records are out of date. The change is already saved
+	 * if this fails, so the problem is only printed.
+	 */
+	private void compactIfStale(){
+		if (records > MIN_COMPACT && records > 2 * monsters.size()) {
+			try {
+				compact();
+			} catch (IOException e) {
+				System.out.println("Could not compact " + file + ": " + e);
+			}
+		}
+	}
+
+	private void put(Monster monster){
+		Monster old = monsters.put(key(monster.getName()), monster);
+		if (old != null) {
+			checksum -= hash(old);
+		}
+		checksum += hash(monster);
+	}
+
+	private void remove(String name){
+		Monster old = monsters.remove(key(name));
+		if (old != null) {
+			checksum -= hash(old);
+		}
+	}
+
+	/**
+	 * Reads every record in the file, and cuts off a record at the end that was not written whole.
+	 */
+	private void replay() throws IOException {
+		if (!Files.exists(file)) {
+			return;
+		}
+		long good = 0;
+		ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+		try {
+			while (in.hasRemaining()) {
+				byte kind = in.get();
+				if (kind == PUT) {
+					put(readMonster(in));
+					records++;
+				} else if (kind == DELETE) {
+					remove(readString(in));
+					records++;
+				} else if (kind == BATCH) {
+					int count = in.getInt();
+					ArrayList<Monster> batch = new ArrayList<Monster>(Math.min(count, 4096));
+					for (int i = 0; i < count; i++) {
+						if (in.get() != PUT) {
+							throw new IOException(file + " has a damaged batch");
+						}
+						batch.add(readMonster(in));
+					}
+					batch.forEach((m) -> put(m));
+					records += count;
+				} else {
+					throw new IOException(file + " has a record of unknown kind " + kind);
+				}
+				good = in.position();
+			}
+		} catch (BufferUnderflowException e) {
+			System.out.println(file + " ends in a record that was not written whole, it is dropped");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.truncate(good);
+			}
+		}
+	}
+
+	private DataOutputStream openLog() throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+	}
+
+	private static byte[] recordOf(byte kind, Monster monster){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(kind);
+			writeString(out, monster.getName());
+			if (kind == PUT) {
+				writeString(out, monster.getUpper());
+				writeString(out, monster.getLower());
+				writeString(out, monster.getDescription());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Monster readMonster(ByteBuffer in){
+		return new Monster(readString(in), readString(in), readString(in), readString(in));
+	}
+
+	private static String readString(ByteBuffer in){
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String key(String name){
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private static long hash(Monster m){
+		long h = Objects.hash(m.getName(), m.getUpper(), m.getLower(), m.getDescription());
+		return h * 0x9E3779B97F4A7C15L;
+	}
+
+}
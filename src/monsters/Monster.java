@@ -1,14 +1,24 @@
 package monsters;
 
 import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 public class Monster implements Serializable {
 
+	/** Kept the same as before the bounds were read as numbers, so saved levels still load. */
+	private static final long serialVersionUID = -8116369999899138926L;
+
+	/** The value of a bound that is not a whole number. */
+	public static final int NO_BOUND = Integer.MIN_VALUE;
+
 	private String monsterName;
 	private String upperBound;
 	private String lowerBound;
 	private String description;
+	private transient int upper = NO_BOUND;
+	private transient int lower = NO_BOUND;
     
 	public Monster(){
 
@@ -21,6 +31,10 @@ public class Monster implements Serializable {
 		setDescription(desc);
 
 	}
+
+	public Monster(String name, int upper, int lower, String desc){
+		this(name, Integer.toString(upper), Integer.toString(lower), desc);
+	}
 	
     //might be easier to make some constructors here
 
@@ -32,9 +46,11 @@ public class Monster implements Serializable {
 	}
 	public void setUpperBound(String upper){
 		upperBound = upper;
+		this.upper = parseBound(upper);
 	}
 	public void setLowerBound(String lower){
 		lowerBound = lower;
+		this.lower = parseBound(lower);
     }
 	public void setDescription(String desc){
 		description = desc;
@@ -52,7 +68,67 @@ public class Monster implements Serializable {
 	public String getDescription(){
 		return description;
 	}
+
+	/**
+	 * @return the upper bound as a number, or NO_BOUND if it is not a whole number
+	 */
+	public int getUpperValue(){
+		return upper;
+	}
+
+	/**
+	 * @return the lower bound as a number, or NO_BOUND if it is not a whole number
+	 */
+	public int getLowerValue(){
+		return lower;
+	}
+
+	/**
+	 * @return true if both bounds are whole numbers
+	 */
+	public boolean hasBounds(){
+		return upper != NO_BOUND && lower != NO_BOUND;
+	}
+
+	/**
+	 * @return the lower of the two bounds, since they can be written either way round
+	 */
+	public int getMinBound(){
+		return Math.min(lower, upper);
+	}
+
+	/**
+	 * @return the higher of the two bounds
+	 */
+	public int getMaxBound(){
+		return Math.max(lower, upper);
+	}
+
+	/**
+	 * @param challenge the challenge, such as the level of a party
+	 * @return true if the monster has bounds and the challenge is within them
+	 */
+	public boolean fits(int challenge){
+		return hasBounds() && getMinBound() <= challenge && challenge <= getMaxBound();
+	}
 	
+	private static int parseBound(String bound){
+		if (bound == null) {
+			return NO_BOUND;
+		}
+		try {
+			return Integer.parseInt(bound.trim());
+		} catch (NumberFormatException e) {
+			return NO_BOUND;
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		upper = parseBound(upperBound);
+		lower = parseBound(lowerBound);
+	}
+
 	@Override
 	public String toString(){
 		return getName() + " max:" + getUpper();  //TODO needs a better toString()
@@ -0,0 +1,364 @@
+package monsters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * A cache in front of a MonsterStore, so monsters that were read recently are not read from
+ * the database again.
+ *
+ * Every cached monster expires after the time to live, and once more than maxEntries monsters
+ * are cached the least recently used one is dropped. The list of all monsters is cached
+ * the same way, as one more entry. Writes go to the database first; a monster that was saved
+ * is put in the cache (write-through), and one that could not be saved or was deleted is
+ * dropped from it, along with the cached list of all monsters. Every write or invalidate moves
+ * the cache to a new generation, and a read from the database is only cached if no write happened
+ * while it was running, so a read that started before a write cannot put back what the write replaced.
+ *
+ * The monsters handed out are the cached objects, so they should not be changed except
+ * through updateMonster.
+ */
+public class MonsterCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+	public static final long DEFAULT_TTL = 5 * 60 * 1000;
+
+	private static volatile MonsterCache shared;
+
+	private final MonsterStore dbc;
+	private final int maxEntries;
+	private final long ttl;
+	private final LinkedHashMap<String, Entry<Monster>> byName;
+	private Entry<ArrayList<Monster>> all;
+	private long generation = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long expirations = 0;
+
+	/**
+	 * Makes a cache with the sizes from the system properties monsters.cache.maxEntries and
+	 * monsters.cache.ttl (milliseconds), or the defaults.
+	 *
+	 * @param dbc the store to read and write through
+	 */
+	public MonsterCache(MonsterStore dbc){
+		this(dbc, Integer.getInteger("monsters.cache.maxEntries", DEFAULT_MAX_ENTRIES), Long.getLong("monsters.cache.ttl", DEFAULT_TTL));
+	}
+
+	/**
+	 * @param dbc the store to read and write through
+	 * @param maxEntries the most monsters kept
+	 * @param ttl milliseconds a monster is kept after it was read or written
+	 */
+	public MonsterCache(MonsterStore dbc, int maxEntries, long ttl){
+		if (maxEntries < 1 || ttl < 0) {
+			throw new IllegalArgumentException("A cache needs room for 1 monster and a ttl of 0 or more, got " + maxEntries + " and " + ttl);
+		}
+		this.dbc = dbc;
+		this.maxEntries = maxEntries;
+		this.ttl = ttl;
+		this.byName = new LinkedHashMap<String, Entry<Monster>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry<Monster>> eldest){
+				if (size() > MonsterCache.this.maxEntries) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @return the cache shared by everything in this process, in front of the store from MonsterStore.open
+	 */
+	public static MonsterCache getShared(){
+		if (shared == null) {
+			synchronized (MonsterCache.class) {
+				if (shared == null) {
+					shared = new MonsterCache(MonsterStore.open());
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * Finds a monster by name, in the cache if it is there and has not expired, or else in the database.
+	 * Names that are not in the database are not cached.
+	 *
+	 * @param name the name of the monster
+	 * @return the monster, with no name if the database does not have it
+	 */
+	public Monster findMonster(String name){
+		Monster cached = peek(name);
+		if (cached != null) {
+			return cached;
+		}
+
+		long seen = generation();
+		Monster monster = dbc.findMonster(name);
+		remember(monster, seen);
+		return monster;
+	}
+
+	/**
+	 * Finds several monsters by name. The ones that are not cached are read from the database
+	 * together, with one call to MonsterStore.findMonsters.
+	 *
+	 * @param names the names of the monsters
+	 * @return the monsters found, by the name they were asked for, in the order they were asked for
+	 */
+	public LinkedHashMap<String, Monster> findMonsters(Collection<String> names){
+		LinkedHashMap<String, Monster> found = new LinkedHashMap<String, Monster>();
+		ArrayList<String> missing = new ArrayList<String>();
+		for (String name : new LinkedHashSet<String>(names)) {
+			Monster cached = name != null ? peek(name) : null;
+			if (cached != null) {
+				found.put(name, cached);
+			} else if (name != null) {
+				missing.add(name);
+			}
+		}
+		if (missing.isEmpty()) {
+			return found;
+		}
+
+		long seen = generation();
+		LinkedHashMap<String, Monster> loaded = dbc.findMonsters(missing);
+		loaded.values().forEach((m) -> remember(m, seen));
+		return ordered(names, found, loaded);
+	}
+
+	/**
+	 * Puts monsters found in two maps into one, in the order they were asked for.
+	 */
+	static LinkedHashMap<String, Monster> ordered(Collection<String> names, Map<String, Monster> cached, Map<String, Monster> loaded){
+		LinkedHashMap<String, Monster> found = new LinkedHashMap<String, Monster>();
+		for (String name : names) {
+			Monster monster = cached.containsKey(name) ? cached.get(name) : loaded.get(name);
+			if (monster != null) {
+				found.put(name, monster);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds a monster in the cache without going to the database.
+	 *
+	 * @param name the name of the monster
+	 * @return the monster, or null if it is not cached or has expired
+	 */
+	public Monster peek(String name){
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Entry<Monster> entry = byName.get(name);
+			if (entry != null && entry.isFresh(now)) {
+				hits++;
+				return entry.value;
+			}
+			if (entry != null) {
+				byName.remove(name);
+				expirations++;
+			}
+			misses++;
+			return null;
+		}
+	}
+
+	/**
+	 * Gets every monster, from the cache if the list has not expired, or else from the database.
+	 * The monsters are not cached by name as well, which would push every other monster out of a
+	 * cache smaller than the table. An empty list is not cached.
+	 *
+	 * @return a new list of all the monsters
+	 * @throws MonsterStoreException if the database could not be read, and nothing is cached
+	 */
+	public ArrayList<Monster> getAllMonsters(){
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (all != null && all.isFresh(now)) {
+				hits++;
+				return new ArrayList<Monster>(all.value);
+			}
+			if (all != null) {
+				all = null;
+				expirations++;
+			}
+			misses++;
+		}
+
+		long seen = generation();
+		ArrayList<Monster> monsters = dbc.getAllMonsters();
+		if (!monsters.isEmpty()) {
+			long loaded = System.currentTimeMillis();
+			synchronized (this) {
+				if (generation == seen) {
+					all = new Entry<ArrayList<Monster>>(new ArrayList<Monster>(monsters), loaded + ttl);
+				}
+			}
+		}
+		return monsters;
+	}
+
+	/**
+	 * Saves a new monster to the database and caches it.
+	 *
+	 * @param monster the monster
+	 * @return true if it was saved
+	 */
+	public boolean addMonster(Monster monster){
+		return written(monster, dbc.addMonster(monster));
+	}
+
+	/**
+	 * Saves the changes to a monster to the database and caches it.
+	 *
+	 * @param monster the monster
+	 * @return true if it was saved
+	 */
+	public boolean updateMonster(Monster monster){
+		return written(monster, dbc.updateMonster(monster));
+	}
+
+	/**
+	 * Deletes a monster from the database and the cache.
+	 *
+	 * @param name the name of the monster
+	 * @return true if the delete was run
+	 */
+	public boolean deleteMonster(String name){
+		boolean deleted = dbc.deleteMonster(name);
+		invalidate(name);
+		return deleted;
+	}
+
+	/**
+	 * Drops a monster from the cache, and the cached list of all monsters, so they are read
+	 * again. Used when the database was changed some other way.
+	 *
+	 * @param name the name of the monster
+	 */
+	public synchronized void invalidate(String name){
+		generation++;
+		byName.remove(name);
+		all = null;
+	}
+
+	/**
+	 * Drops everything from the cache.
+	 */
+	public synchronized void invalidateAll(){
+		generation++;
+		byName.clear();
+		all = null;
+	}
+
+	/**
+	 * @return the number of reads answered from the cache
+	 */
+	public synchronized long getHitCount(){
+		return hits;
+	}
+
+	/**
+	 * @return the number of reads that went to the database
+	 */
+	public synchronized long getMissCount(){
+		return misses;
+	}
+
+	/**
+	 * @return the number of monsters dropped to make room for others
+	 */
+	public synchronized long getEvictionCount(){
+		return evictions;
+	}
+
+	/**
+	 * @return the number of entries dropped because they were older than the time to live
+	 */
+	public synchronized long getExpiredCount(){
+		return expirations;
+	}
+
+	/**
+	 * @return the number of monsters cached by name
+	 */
+	public synchronized int size(){
+		return byName.size();
+	}
+
+	@Override
+	public synchronized String toString(){
+		return "MonsterCache size:" + byName.size() + " hits:" + hits + " misses:" + misses + " evictions:" + evictions + " expired:" + expirations;
+	}
+
+	/**
+	 * Updates the cache after a monster was written to the database some other way.
+	 *
+	 * @param monster the monster written
+	 * @param saved true if it was saved
+	 * @return saved
+	 */
+	boolean written(Monster monster, boolean saved){
+		if (saved && monster.getName() != null) {
+			synchronized (this) {
+				generation++;
+				put(monster, System.currentTimeMillis());
+				all = null;
+			}
+		} else {
+			invalidate(monster.getName());
+		}
+		return saved;
+	}
+
+	/**
+	 * @return the generation of the cache, to pass to remember for a read started now
+	 */
+	synchronized long generation(){
+		return generation;
+	}
+
+	/**
+	 * Caches a monster read from the database some other way, unless the cache was written to
+	 * since the read started.
+	 *
+	 * @param monster the monster
+	 * @param seen the generation from before the read started
+	 */
+	synchronized void remember(Monster monster, long seen){
+		if (monster.getName() != null && generation == seen) {
+			put(monster, System.currentTimeMillis());
+		}
+	}
+
+	private synchronized void put(Monster monster, long now){
+		byName.put(monster.getName(), new Entry<Monster>(monster, now + ttl));
+	}
+
+	/**
+	 * A cached value and when it expires.
+	 */
+	private static class Entry<T> {
+		private final T value;
+		private final long expires;
+
+		Entry(T value, long expires){
+			this.value = value;
+			this.expires = expires;
+		}
+
+		boolean isFresh(long now){
+			return now < expires;
+		}
+	}
+
+}
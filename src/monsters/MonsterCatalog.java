@@ -0,0 +1,272 @@
+package monsters;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * An immutable, in-memory list of monsters indexed by name, so monsters can be looked up
+ * without going back to the database. Finding a monster by its exact name takes constant time,
+ * and finding every monster whose name starts with some text, ignoring case, takes
+ * logarithmic time plus the number of matches. Finding the monsters whose lower and upper bounds
+ * hold a challenge also takes logarithmic time plus the number of matches, with a
+ * MonsterRangeIndex built the first time it is needed.
+ *
+ * A catalog never changes once made. withMonster and withoutMonster return a new catalog,
+ * so a catalog can be shared between threads and levels without locking.
+ */
+public class MonsterCatalog implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Monster> monsters;
+	private transient HashMap<String, Monster> byName;
+	/** The monsters by their name in lower case, names that are equal ignoring case ordered by their exact spelling. */
+	private transient TreeMap<String, List<Monster>> byPrefix;
+	private transient volatile MonsterRangeIndex byRange;
+
+	/**
+	 * Makes a catalog of the monsters passed to it, in the same order. If several monsters
+	 * share a name, the first of them is the one found by name.
+	 *
+	 * @param allMonsters the monsters, may be null for an empty catalog
+	 */
+	public MonsterCatalog(Collection<Monster> allMonsters){
+		ArrayList<Monster> copy = allMonsters != null ? new ArrayList<Monster>(allMonsters) : new ArrayList<Monster>();
+		monsters = Collections.unmodifiableList(copy);
+		index();
+	}
+
+	/**
+	 * Loads every monster from a store into a new catalog.
+	 *
+	 * @param dbc the store to load from
+	 * @return the catalog
+	 * @throws MonsterStoreException if the monsters could not be read
+	 */
+	public static MonsterCatalog load(MonsterStore dbc){
+		return new MonsterCatalog(dbc.getAllMonsters());
+	}
+
+	/**
+	 * @param name the exact name of the monster
+	 * @return the monster, or null if there is none by that name
+	 */
+	public Monster find(String name){
+		return name == null ? null : byName.get(name);
+	}
+
+	/**
+	 * @param prefix the start of the names, compared ignoring case
+	 * @return every monster whose name starts with the prefix, ordered by name
+	 */
+	public List<Monster> findByPrefix(String prefix){
+		Collection<List<Monster>> matches = byPrefix.values();
+		if (prefix != null && !prefix.isEmpty()) {
+			String lower = key(prefix);
+			matches = byPrefix.subMap(lower, true, lower + Character.MAX_VALUE, false).values();
+		}
+		ArrayList<Monster> found = new ArrayList<Monster>();
+		matches.forEach(found::addAll);
+		return found;
+	}
+
+	/**
+	 * @param challenge the challenge, such as the level of a party
+	 * @return every monster whose bounds hold the challenge, in the order they were loaded
+	 */
+	public List<Monster> findFitting(int challenge){
+		return getRangeIndex().fitting(challenge);
+	}
+
+	/**
+	 * @param lowest the lowest challenge of the range
+	 * @param highest the highest challenge of the range
+	 * @return every monster whose bounds share a challenge with the range, in the order they were loaded
+	 */
+	public List<Monster> findOverlapping(int lowest, int highest){
+		return getRangeIndex().overlapping(lowest, highest);
+	}
+
+	/**
+	 * @return the index of the monsters by their bounds, built the first time it is asked for
+	 */
+	public MonsterRangeIndex getRangeIndex(){
+		MonsterRangeIndex index = byRange;
+		if (index == null) {
+			index = new MonsterRangeIndex(monsters);
+			byRange = index;
+		}
+		return index;
+	}
+
+	/**
+	 * @return every monster, in the order they were loaded, as a list that cannot be changed
+	 */
+	public List<Monster> getAll(){
+		return monsters;
+	}
+
+	/**
+	 * @param index the index of the monster, in the order they were loaded
+	 * @return the monster
+	 */
+	public Monster get(int index){
+		return monsters.get(index);
+	}
+
+	/**
+	 * @return the number of monsters
+	 */
+	public int size(){
+		return monsters.size();
+	}
+
+	/**
+	 * Makes a catalog with a monster added, or put in place of the monster with the same name.
+	 *
+	 * @param monster the monster to add
+	 * @return the new catalog
+	 */
+	public MonsterCatalog withMonster(Monster monster){
+		ArrayList<Monster> changed = new ArrayList<Monster>(monsters);
+		int existing = indexOf(monster.getName());
+		if (existing < 0) {
+			changed.add(monster);
+		} else {
+			changed.set(existing, monster);
+		}
+		return new MonsterCatalog(changed);
+	}
+
+	/**
+	 * Makes a catalog without the monsters with a name.
+	 *
+	 * @param name the name of the monsters to leave out
+	 * @return the new catalog, or this one if there were none by that name
+	 */
+	public MonsterCatalog withoutMonster(String name){
+		if (find(name) == null) {
+			return this;
+		}
+		ArrayList<Monster> changed = new ArrayList<Monster>(monsters.size());
+		for (Monster m : monsters) {
+			if (!name.equals(m.getName())) {
+				changed.add(m);
+			}
+		}
+		return new MonsterCatalog(changed);
+	}
+
+	/**
+	 * Makes a catalog with many monsters added, or put in place of the monster with the same name,
+	 * in one pass over the catalog.
+	 *
+	 * @param changed the monsters to add
+	 * @return the new catalog, or this one if every monster was already in it as it is
+	 */
+	public MonsterCatalog withMonsters(Collection<Monster> changed){
+		ArrayList<Monster> next = null;
+		HashMap<String, Integer> at = null;
+		for (Monster m : changed) {
+			Monster old = find(m.getName());
+			if (old != null && sameMonster(old, m)) {
+				continue;
+			}
+			if (next == null) {
+				next = new ArrayList<Monster>(monsters);
+				at = new HashMap<String, Integer>(monsters.size() * 2);
+				for (int i = 0; i < monsters.size(); i++) {
+					at.putIfAbsent(monsters.get(i).getName(), i);
+				}
+			}
+			Integer existing = m.getName() != null ? at.get(m.getName()) : null;
+			if (existing != null) {
+				next.set(existing, m);
+			} else {
+				at.put(m.getName(), next.size());
+				next.add(m);
+			}
+		}
+		return next == null ? this : new MonsterCatalog(next);
+	}
+
+	/**
+	 * Makes a catalog without the monsters with any of some names, in one pass over the catalog.
+	 *
+	 * @param names the names of the monsters to leave out
+	 * @return the new catalog, or this one if there were none by those names
+	 */
+	public MonsterCatalog withoutMonsters(Collection<String> names){
+		HashSet<String> drop = new HashSet<String>();
+		for (String name : names) {
+			if (find(name) != null) {
+				drop.add(name);
+			}
+		}
+		if (drop.isEmpty()) {
+			return this;
+		}
+		ArrayList<Monster> next = new ArrayList<Monster>(monsters.size());
+		for (Monster m : monsters) {
+			if (!drop.contains(m.getName())) {
+				next.add(m);
+			}
+		}
+		return new MonsterCatalog(next);
+	}
+
+	private static boolean sameMonster(Monster a, Monster b){
+		return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getUpper(), b.getUpper())
+				&& Objects.equals(a.getLower(), b.getLower()) && Objects.equals(a.getDescription(), b.getDescription());
+	}
+
+	private int indexOf(String name){
+		if (name == null) {
+			return -1;
+		}
+		for (int i = 0; i < monsters.size(); i++) {
+			if (name.equals(monsters.get(i).getName())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void index(){
+		byName = new HashMap<String, Monster>(monsters.size() * 2);
+		byPrefix = new TreeMap<String, List<Monster>>();
+		for (Monster m : monsters) {
+			String name = m.getName();
+			if (name != null && byName.putIfAbsent(name, m) == null) {
+				byPrefix.computeIfAbsent(key(name), (k) -> new ArrayList<Monster>(1)).add(m);
+			}
+		}
+		Comparator<Monster> bySpelling = Comparator.comparing(Monster::getName);
+		for (List<Monster> same : byPrefix.values()) {
+			if (same.size() > 1) {
+				same.sort(bySpelling);
+			}
+		}
+	}
+
+	private static String key(String name){
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		index();
+	}
+
+}
@@ -0,0 +1,46 @@
+package monsters;
+
+import java.util.ArrayList;
+
+/**
+ * The monsters added, changed and deleted in a store since a watermark, read by MonsterStore.changesSince.
+ */
+public class MonsterChanges {
+
+	private final ArrayList<Monster> changed;
+	private final ArrayList<String> deleted;
+	private final long watermark;
+
+	/**
+	 * @param changed the monsters added or changed
+	 * @param deleted the names of the monsters deleted, some of which may have been added again since
+	 * @param watermark the watermark to read the next changes from
+	 */
+	public MonsterChanges(ArrayList<Monster> changed, ArrayList<String> deleted, long watermark){
+		this.changed = changed;
+		this.deleted = deleted;
+		this.watermark = watermark;
+	}
+
+	/**
+	 * @return the monsters added or changed
+	 */
+	public ArrayList<Monster> getChanged(){
+		return changed;
+	}
+
+	/**
+	 * @return the names of the monsters deleted. A name that is also in getChanged was added again after it was deleted.
+	 */
+	public ArrayList<String> getDeleted(){
+		return deleted;
+	}
+
+	/**
+	 * @return the watermark to read the next changes from
+	 */
+	public long getWatermark(){
+		return watermark;
+	}
+
+}
@@ -0,0 +1,224 @@
+package monsters;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads monsters from a CSV file one at a time, so a file of any size can be imported with
+ * MonsterStore.importMonsters without holding it in memory.
+ *
+ * Every line holds name,upper,lower,description. Fields can be quoted with double quotes, and
+ * quoted fields can hold commas, new lines and quotes written twice (""). An empty unquoted
+ * field is read as null. A first line of name,upper,lower,description is skipped.
+ *
+ * Run it as monsters.MonsterImporter file.csv [batchSize] to import a file.
+ */
+public class MonsterImporter implements Iterator<Monster>, Closeable {
+
+	private static final String[] HEADER = {"name", "upper", "lower", "description"};
+
+	private final BufferedReader in;
+	private int line = 0;
+	private int read = 0;
+	private Monster next;
+
+	/**
+	 * @param reader the CSV to read
+	 * @throws IOException if the first monster could not be read
+	 */
+	public MonsterImporter(Reader reader) throws IOException {
+		in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		ArrayList<String> first = readFilledRecord();
+		if (first != null && !isHeader(first)) {
+			next = toMonster(first);
+		} else {
+			next = readMonster();
+		}
+	}
+
+	@Override
+	public boolean hasNext(){
+		return next != null;
+	}
+
+	/**
+	 * @return the next monster
+	 * @throws UncheckedIOException if the file could not be read or a line is not a monster
+	 */
+	@Override
+	public Monster next(){
+		if (next == null) {
+			throw new NoSuchElementException();
+		}
+		Monster current = next;
+		read++;
+		try {
+			next = readMonster();
+		} catch (IOException e) {
+			next = null;
+			throw new UncheckedIOException(e);
+		}
+		return current;
+	}
+
+	/**
+	 * @return the number of monsters handed out by next so far
+	 */
+	public int getCount(){
+		return read;
+	}
+
+	/**
+	 * @return the number of lines read so far
+	 */
+	public int getLine(){
+		return line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private Monster readMonster() throws IOException {
+		ArrayList<String> record = readFilledRecord();
+		return record == null ? null : toMonster(record);
+	}
+
+	/**
+	 * Reads the next record, skipping empty lines.
+	 */
+	private ArrayList<String> readFilledRecord() throws IOException {
+		ArrayList<String> record;
+		do {
+			record = readRecord();
+		} while (record != null && record.size() == 1 && record.get(0) == null);
+		return record;
+	}
+
+	private Monster toMonster(ArrayList<String> record) throws IOException {
+		if (record.size() != HEADER.length) {
+			throw new IOException("Line " + line + " has " + record.size() + " fields, a monster needs " + HEADER.length);
+		}
+		return new Monster(record.get(0), record.get(1), record.get(2), record.get(3));
+	}
+
+	private static boolean isHeader(ArrayList<String> record){
+		if (record.size() != HEADER.length) {
+			return false;
+		}
+		for (int i = 0; i < HEADER.length; i++) {
+			if (record.get(i) == null || !HEADER[i].equalsIgnoreCase(record.get(i).trim())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the fields of one record, which can run over several lines if a quoted field holds new lines.
+	 *
+	 * @return the fields, or null at the end of the file
+	 */
+	private ArrayList<String> readRecord() throws IOException {
+		String text = in.readLine();
+		if (text == null) {
+			return null;
+		}
+		line++;
+		int start = line;
+
+		ArrayList<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean wasQuoted = false;
+		int i = 0;
+		while (true) {
+			if (i == text.length()) {
+				if (!quoted) {
+					break;
+				}
+				text = in.readLine();
+				if (text == null) {
+					throw new IOException("Line " + start + " has a quote that is never closed");
+				}
+				line++;
+				field.append('\n');
+				i = 0;
+				continue;
+			}
+			char c = text.charAt(i++);
+			if (quoted) {
+				if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+				wasQuoted = true;
+			} else if (c == ',') {
+				fields.add(toField(field, wasQuoted));
+				field.setLength(0);
+				wasQuoted = false;
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(toField(field, wasQuoted));
+		return fields;
+	}
+
+	private static String toField(StringBuilder field, boolean wasQuoted){
+		return field.length() == 0 && !wasQuoted ? null : field.toString();
+	}
+
+	/**
+	 * Imports a CSV file of monsters into the database.
+	 *
+	 * @param args the file, and optionally the number of monsters sent and committed together
+	 */
+	public static void main(String[] args){
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: MonsterImporter file.csv [batchSize]");
+			System.exit(2);
+		}
+		int batchSize = DBConnection.IMPORT_BATCH;
+		if (args.length == 2) {
+			try {
+				batchSize = Integer.parseInt(args[1]);
+			} catch (NumberFormatException e) {
+				System.err.println("The batch size has to be a number, got " + args[1]);
+				System.exit(2);
+			}
+		}
+
+		long start = System.nanoTime();
+		try (MonsterImporter monsters = new MonsterImporter(Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8))) {
+			int saved = MonsterStore.open().importMonsters(monsters, batchSize);
+			long millis = (System.nanoTime() - start) / 1000000;
+			System.out.println("Imported " + saved + " monsters in " + millis + " ms");
+			if (saved < monsters.getCount() || monsters.hasNext()) {
+				System.err.println("Stopped at line " + monsters.getLine() + ", only " + saved + " of the " + monsters.getCount()
+						+ " monsters read were imported, the batch that failed and everything after it were not");
+				System.exit(1);
+			}
+		} catch (IOException | UncheckedIOException e) {
+			System.err.println("Could not import " + args[0] + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+}
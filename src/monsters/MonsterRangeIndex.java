@@ -0,0 +1,222 @@
+package monsters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable index of monsters by their lower and upper bounds, to find the monsters that fit
+ * a challenge, such as the level of a party, or a range of challenges, without reading every
+ * monster. Monsters whose bounds are not whole numbers are left out.
+ *
+ * The index is a centered interval tree: every node holds the monsters whose bounds contain its
+ * center, sorted once by lower bound and once by upper bound, with the monsters wholly below the
+ * center to its left and wholly above it to its right. Finding the k monsters that fit a challenge
+ * takes O(log n + k) steps. They are handed back in the order they were given to the index, which
+ * costs O(k log k) more.
+ */
+public class MonsterRangeIndex {
+
+	private final Monster[] monsters;
+	private final int[] lower;
+	private final int[] upper;
+	private final Node root;
+	/** The monsters sorted by lower bound, and their lower bounds, for the ranges above a challenge. */
+	private final int[] byLower;
+	private final int[] sortedLower;
+
+	/**
+	 * @param allMonsters the monsters, in the order results are given back in
+	 */
+	public MonsterRangeIndex(Collection<Monster> allMonsters){
+		ArrayList<Monster> bounded = new ArrayList<Monster>(allMonsters.size());
+		for (Monster m : allMonsters) {
+			if (m.hasBounds()) {
+				bounded.add(m);
+			}
+		}
+		int size = bounded.size();
+		monsters = bounded.toArray(new Monster[size]);
+		lower = new int[size];
+		upper = new int[size];
+		Integer[] ids = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			lower[i] = monsters[i].getMinBound();
+			upper[i] = monsters[i].getMaxBound();
+			ids[i] = i;
+		}
+
+		Arrays.sort(ids, Comparator.comparingInt((Integer i) -> lower[i]));
+		byLower = new int[size];
+		sortedLower = new int[size];
+		for (int i = 0; i < size; i++) {
+			byLower[i] = ids[i];
+			sortedLower[i] = lower[ids[i]];
+		}
+		root = build(byLower);
+	}
+
+	/**
+	 * @param challenge the challenge
+	 * @return every monster whose bounds hold the challenge
+	 */
+	public List<Monster> fitting(int challenge){
+		IntList found = new IntList();
+		stab(challenge, found);
+		return toMonsters(found);
+	}
+
+	/**
+	 * @param lowest the lowest challenge of the range
+	 * @param highest the highest challenge of the range
+	 * @return every monster whose bounds share at least one challenge with the range
+	 */
+	public List<Monster> overlapping(int lowest, int highest){
+		if (lowest > highest) {
+			return new ArrayList<Monster>();
+		}
+		// The monsters that fit the lowest challenge, then the ones that start inside the range.
+		IntList found = new IntList();
+		stab(lowest, found);
+		int from = lowest == Integer.MAX_VALUE ? sortedLower.length : firstAtLeast(lowest + 1);
+		for (int i = from; i < sortedLower.length && sortedLower[i] <= highest; i++) {
+			found.add(byLower[i]);
+		}
+		return toMonsters(found);
+	}
+
+	/**
+	 * @return the number of monsters in the index, leaving out those without bounds
+	 */
+	public int size(){
+		return monsters.length;
+	}
+
+	/**
+	 * Adds every monster whose bounds hold the challenge, walking down from the root and only
+	 * reading the monsters of a node while they still fit.
+	 */
+	private void stab(int challenge, IntList found){
+		Node node = root;
+		while (node != null) {
+			if (challenge < node.center) {
+				for (int i = 0; i < node.byLower.length && lower[node.byLower[i]] <= challenge; i++) {
+					found.add(node.byLower[i]);
+				}
+				node = node.left;
+			} else if (challenge > node.center) {
+				for (int i = 0; i < node.byUpper.length && upper[node.byUpper[i]] >= challenge; i++) {
+					found.add(node.byUpper[i]);
+				}
+				node = node.right;
+			} else {
+				found.addAll(node.byLower);
+				node = null;
+			}
+		}
+	}
+
+	private int firstAtLeast(int value){
+		int low = 0;
+		int high = sortedLower.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortedLower[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private List<Monster> toMonsters(IntList found){
+		int[] ids = Arrays.copyOf(found.values, found.size);
+		Arrays.sort(ids);
+		ArrayList<Monster> result = new ArrayList<Monster>(ids.length);
+		for (int id : ids) {
+			result.add(monsters[id]);
+		}
+		return result;
+	}
+
+	/**
+	 * Builds the tree over some monsters, centered on the median of their bounds so it stays
+	 * O(log n) deep.
+	 *
+	 * @param ids the monsters, sorted by lower bound
+	 */
+	private Node build(int[] ids){
+		if (ids.length == 0) {
+			return null;
+		}
+		int[] ends = new int[ids.length * 2];
+		for (int i = 0; i < ids.length; i++) {
+			ends[2 * i] = lower[ids[i]];
+			ends[2 * i + 1] = upper[ids[i]];
+		}
+		Arrays.sort(ends);
+		int center = ends[ends.length / 2];
+
+		IntList left = new IntList();
+		IntList here = new IntList();
+		IntList right = new IntList();
+		for (int id : ids) {
+			if (upper[id] < center) {
+				left.add(id);
+			} else if (lower[id] > center) {
+				right.add(id);
+			} else {
+				here.add(id);
+			}
+		}
+
+		Node node = new Node();
+		node.center = center;
+		node.byLower = Arrays.copyOf(here.values, here.size);
+		Integer[] byUpper = new Integer[here.size];
+		for (int i = 0; i < here.size; i++) {
+			byUpper[i] = here.values[i];
+		}
+		Arrays.sort(byUpper, Comparator.comparingInt((Integer i) -> upper[i]).reversed());
+		node.byUpper = new int[byUpper.length];
+		for (int i = 0; i < byUpper.length; i++) {
+			node.byUpper[i] = byUpper[i];
+		}
+		node.left = build(Arrays.copyOf(left.values, left.size));
+		node.right = build(Arrays.copyOf(right.values, right.size));
+		return node;
+	}
+
+	private static final class Node {
+		int center;
+		/** The monsters whose bounds hold the center, by lower bound, then by upper bound highest first. */
+		int[] byLower;
+		int[] byUpper;
+		Node left;
+		Node right;
+	}
+
+	private static final class IntList {
+		int[] values = new int[8];
+		int size = 0;
+
+		void add(int value){
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		void addAll(int[] more){
+			if (size + more.length > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + more.length, size * 2));
+			}
+			System.arraycopy(more, 0, values, size, more.length);
+			size += more.length;
+		}
+	}
+
+}
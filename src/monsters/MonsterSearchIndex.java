@@ -0,0 +1,435 @@
+package monsters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A full-text index of the names and descriptions of monsters, to search them as the user types.
+ *
+ * Text is split into words of letters and digits, ignoring case. A query finds the monsters that
+ * have every word of the query, or a word starting with it, in their name or description. They are
+ * ranked by how rare the words they match are, with words in the name counting more than words in
+ * the description and whole words counting more than the start of one. Monsters that score the same
+ * are cut off at the limit in the order they were put in, and given back by name.
+ *
+ * Monsters are put in and taken out one at a time, or a whole list is synced, which only touches
+ * the monsters that changed. A monster taken out leaves its words behind until most of the index
+ * is out of date, when it is built again. Searches can run from many threads at once.
+ */
+public class MonsterSearchIndex {
+
+	private static final float NAME_WEIGHT = 3f;
+	private static final float PREFIX_WEIGHT = 0.5f;
+	private static final int MIN_REBUILD = 1024;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<String, Postings> terms = new TreeMap<String, Postings>();
+	private final HashMap<String, Integer> byName = new HashMap<String, Integer>();
+	/** Every monster put in, by id, null once it has been taken out. */
+	private Monster[] docs = new Monster[64];
+	private int used = 0;
+	private int live = 0;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	public MonsterSearchIndex(){
+	}
+
+	/**
+	 * @param monsters the monsters to put in the index
+	 */
+	public MonsterSearchIndex(Collection<Monster> monsters){
+		sync(monsters);
+	}
+
+	/**
+	 * Puts a monster in the index, in place of the monster with the same name ignoring case.
+	 *
+	 * @param monster the monster
+	 * @return true if the index changed, false if the monster has no name or was already in it as it is
+	 */
+	public boolean put(Monster monster){
+		lock.writeLock().lock();
+		try {
+			boolean changed = add(monster);
+			rebuildIfStale();
+			return changed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param name the name of the monster, ignoring case
+	 * @return true if it was in the index
+	 */
+	public boolean remove(String name){
+		lock.writeLock().lock();
+		try {
+			boolean changed = drop(name);
+			rebuildIfStale();
+			return changed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Makes the index hold the monsters in a list, only putting in the ones that are new or changed
+	 * and only taking out the ones that are gone. If several share a name, the first of them is kept.
+	 *
+	 * @param monsters the monsters
+	 * @return the number of monsters put in or taken out
+	 */
+	public int sync(Collection<Monster> monsters){
+		lock.writeLock().lock();
+		try {
+			int changed = 0;
+			HashSet<String> kept = new HashSet<String>(monsters.size() * 2);
+			for (Monster m : monsters) {
+				if (m.getName() != null && kept.add(key(m.getName())) && add(m)) {
+					changed++;
+				}
+			}
+			Iterator<String> names = byName.keySet().iterator();
+			while (names.hasNext()) {
+				String name = names.next();
+				if (!kept.contains(name)) {
+					docs[byName.get(name)] = null;
+					names.remove();
+					live--;
+					changed++;
+				}
+			}
+			rebuildIfStale();
+			return changed;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param query the words to search for
+	 * @param limit the most monsters to give back
+	 * @return the monsters that match every word, best first
+	 */
+	public List<Monster> search(String query, int limit){
+		List<String> words = new ArrayList<String>(new LinkedHashSet<String>(tokenize(query)));
+		if (words.isEmpty() || limit < 1) {
+			return new ArrayList<Monster>();
+		}
+		lock.readLock().lock();
+		try {
+			return rank(words, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of monsters in the index
+	 */
+	public int size(){
+		lock.readLock().lock();
+		try {
+			return live;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Scores every monster word by word. A monster only stays in the running while it has matched
+	 * every word so far, and for each word only its best matching term counts.
+	 */
+	private List<Monster> rank(List<String> words, int limit){
+		Scratch s = scratch.get();
+		s.ensure(used);
+		IntList candidates = null;
+		try {
+			for (int w = 0; w < words.size(); w++) {
+				String word = words.get(w);
+				IntList touched = new IntList();
+				if (w == 0) {
+					s.seen = touched;
+				}
+				Postings exact = terms.get(word);
+				if (exact != null) {
+					score(exact, 1f, w, s, touched);
+				}
+				for (Postings prefixed : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+					score(prefixed, PREFIX_WEIGHT, w, s, touched);
+				}
+				for (int i = 0; i < touched.size; i++) {
+					int id = touched.values[i];
+					s.matched[id]++;
+					s.total[id] += s.best[id];
+					s.best[id] = 0f;
+				}
+				candidates = touched;
+				if (touched.size == 0) {
+					break;
+				}
+			}
+
+			Integer[] top = Arrays.stream(topScores(candidates, s.total, limit)).boxed().toArray(Integer[]::new);
+			Arrays.sort(top, (a, b) -> {
+				int byScore = Float.compare(s.total[b], s.total[a]);
+				return byScore != 0 ? byScore : docs[a].getName().compareToIgnoreCase(docs[b].getName());
+			});
+			ArrayList<Monster> ranked = new ArrayList<Monster>(top.length);
+			for (int id : top) {
+				ranked.add(docs[id]);
+			}
+			return ranked;
+		} finally {
+			s.clear();
+		}
+	}
+
+	/**
+	 * Picks the best scoring monsters with a heap of the limit's size, worst at the top, so most
+	 * candidates are turned away with one comparison. Ties go to the monster put in first.
+	 */
+	private static int[] topScores(IntList candidates, float[] total, int limit){
+		int[] heap = new int[Math.min(limit, candidates.size)];
+		int size = 0;
+		for (int i = 0; i < candidates.size; i++) {
+			int id = candidates.values[i];
+			if (size < heap.length) {
+				heap[size] = id;
+				siftUp(heap, size++, total);
+			} else if (worse(heap[0], id, total)) {
+				heap[0] = id;
+				siftDown(heap, size, total);
+			}
+		}
+		return heap;
+	}
+
+	private static boolean worse(int a, int b, float[] total){
+		return total[a] < total[b] || (total[a] == total[b] && a > b);
+	}
+
+	private static void siftUp(int[] heap, int at, float[] total){
+		int id = heap[at];
+		while (at > 0) {
+			int parent = (at - 1) >>> 1;
+			if (!worse(id, heap[parent], total)) {
+				break;
+			}
+			heap[at] = heap[parent];
+			at = parent;
+		}
+		heap[at] = id;
+	}
+
+	private static void siftDown(int[] heap, int size, float[] total){
+		int id = heap[0];
+		int at = 0;
+		while (true) {
+			int child = 2 * at + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && worse(heap[child + 1], heap[child], total)) {
+				child++;
+			}
+			if (!worse(heap[child], id, total)) {
+				break;
+			}
+			heap[at] = heap[child];
+			at = child;
+		}
+		heap[at] = id;
+	}
+
+	private void score(Postings postings, float weight, int word, Scratch s, IntList touched){
+		float idf = (float) Math.log(1.0 + (double) live / postings.size);
+		for (int i = 0; i < postings.size; i++) {
+			int id = postings.ids[i];
+			if (docs[id] == null || s.matched[id] != word) {
+				continue;
+			}
+			float score = postings.weights[i] * idf * weight;
+			if (s.best[id] == 0f) {
+				touched.add(id);
+			}
+			if (score > s.best[id]) {
+				s.best[id] = score;
+			}
+		}
+	}
+
+	private boolean add(Monster monster){
+		if (monster.getName() == null) {
+			return false;
+		}
+		String name = key(monster.getName());
+		Integer old = byName.get(name);
+		if (old != null) {
+			if (sameText(docs[old], monster)) {
+				docs[old] = monster;
+				return false;
+			}
+			docs[old] = null;
+			live--;
+		}
+
+		int id = used++;
+		if (id == docs.length) {
+			docs = Arrays.copyOf(docs, docs.length * 2);
+		}
+		docs[id] = monster;
+		byName.put(name, id);
+		live++;
+
+		LinkedHashMap<String, Float> weights = new LinkedHashMap<String, Float>();
+		for (String word : tokenize(monster.getName())) {
+			weights.merge(word, NAME_WEIGHT, Float::sum);
+		}
+		HashMap<String, Integer> counts = new HashMap<String, Integer>();
+		for (String word : tokenize(monster.getDescription())) {
+			counts.merge(word, 1, Integer::sum);
+		}
+		for (Map.Entry<String, Integer> e : counts.entrySet()) {
+			weights.merge(e.getKey(), (float) Math.sqrt(e.getValue()), Float::sum);
+		}
+		for (Map.Entry<String, Float> e : weights.entrySet()) {
+			terms.computeIfAbsent(e.getKey(), (word) -> new Postings()).add(id, e.getValue());
+		}
+		return true;
+	}
+
+	private boolean drop(String name){
+		Integer id = name == null ? null : byName.remove(key(name));
+		if (id == null) {
+			return false;
+		}
+		docs[id] = null;
+		live--;
+		return true;
+	}
+
+	/**
+	 * Builds the index again once more than half of what it holds belongs to monsters taken out.
+	 */
+	private void rebuildIfStale(){
+		if (used > MIN_REBUILD && used - live > live) {
+			ArrayList<Monster> kept = new ArrayList<Monster>(live);
+			for (int id = 0; id < used; id++) {
+				if (docs[id] != null) {
+					kept.add(docs[id]);
+				}
+			}
+			terms.clear();
+			byName.clear();
+			docs = new Monster[Math.max(64, kept.size() * 2)];
+			used = 0;
+			live = 0;
+			kept.forEach((m) -> add(m));
+		}
+	}
+
+	private static boolean sameText(Monster a, Monster b){
+		return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getDescription(), b.getDescription());
+	}
+
+	/**
+	 * @param text the text
+	 * @return its words of letters and digits in lower case, in order
+	 */
+	static List<String> tokenize(String text){
+		ArrayList<String> words = new ArrayList<String>();
+		if (text == null) {
+			return words;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inWord && start < 0) {
+				start = i;
+			} else if (!inWord && start >= 0) {
+				words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	private static String key(String name){
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	/** The monsters a term is in, and how much it weighs in each. */
+	private static final class Postings {
+		int[] ids = new int[4];
+		float[] weights = new float[4];
+		int size = 0;
+
+		void add(int id, float weight){
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+			}
+			ids[size] = id;
+			weights[size++] = weight;
+		}
+	}
+
+	/**
+	 * The scores of one search, kept per thread so a search does not clear an array the size of
+	 * the index. Only the monsters a search touched are cleared after it.
+	 */
+	private static final class Scratch {
+		float[] best = new float[0];
+		float[] total = new float[0];
+		int[] matched = new int[0];
+		IntList seen;
+
+		void ensure(int size){
+			if (best.length < size) {
+				best = new float[size];
+				total = new float[size];
+				matched = new int[size];
+			}
+		}
+
+		void clear(){
+			if (seen != null) {
+				for (int i = 0; i < seen.size; i++) {
+					int id = seen.values[i];
+					best[id] = 0f;
+					total[id] = 0f;
+					matched[id] = 0;
+				}
+				seen = null;
+			}
+		}
+	}
+
+	private static final class IntList {
+		int[] values = new int[8];
+		int size = 0;
+
+		void add(int value){
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+
+}
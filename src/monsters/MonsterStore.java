@@ -0,0 +1,137 @@
+package monsters;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Somewhere monsters are kept. DBConnection keeps them in the MySQL database, and
+ * LocalMonsterStore keeps them in a file on this machine, so everything built on a store
+ * works the same with either.
+ *
+ * The store to use is picked with open(): the system property monsters.store is mysql (the
+ * default) or local, and monsters.store.file is the file of a local store.
+ */
+public interface MonsterStore {
+
+	/** The file of the local store when monsters.store.file is not set, in the home directory. */
+	String DEFAULT_LOCAL_FILE = ".dnd-monsters.log";
+
+	/**
+	 * Opens the store picked by the system properties.
+	 *
+	 * @return the store
+	 * @throws java.io.UncheckedIOException if the local store could not be opened
+	 */
+	static MonsterStore open(){
+		if ("local".equalsIgnoreCase(System.getProperty("monsters.store", "mysql"))) {
+			String file = System.getProperty("monsters.store.file", Paths.get(System.getProperty("user.home"), DEFAULT_LOCAL_FILE).toString());
+			return LocalMonsterStore.open(Paths.get(file));
+		}
+		return new DBConnection();
+	}
+
+	/**
+	 * @return every monster
+	 * @throws MonsterStoreException if they could not be read, so that is never taken for there being none
+	 */
+	ArrayList<Monster> getAllMonsters();
+
+	/**
+	 * Hands every monster to an action as it is read.
+	 *
+	 * @param action what to do with each monster
+	 * @return true if every monster was read
+	 */
+	boolean forEachMonster(Consumer<Monster> action);
+
+	/**
+	 * @param name the name of the monster
+	 * @return the monster, with no name if there is none
+	 * @throws MonsterStoreException if the store could not be asked
+	 */
+	Monster findMonster(String name);
+
+	/**
+	 * @param names the names of the monsters, repeats and nulls are skipped
+	 * @return the monsters found, by the name they were asked for, in the order they were asked for
+	 * @throws MonsterStoreException if the store could not be asked
+	 */
+	LinkedHashMap<String, Monster> findMonsters(Collection<String> names);
+
+	/**
+	 * @param monster the monster to save
+	 * @return true if it was saved
+	 */
+	boolean addMonster(Monster monster);
+
+	/**
+	 * Saves many new monsters, batchSize at a time, each batch saved whole or not at all.
+	 *
+	 * @param monsters the monsters
+	 * @param batchSize the number of monsters saved together
+	 * @return the number of monsters saved, fewer than were taken from the iterator if a batch failed
+	 */
+	int importMonsters(Iterator<Monster> monsters, int batchSize);
+
+	/**
+	 * @param monster the monster to save, found by its name
+	 * @return true if it was saved
+	 */
+	boolean updateMonster(Monster monster);
+
+	/**
+	 * @param name the name of the monster to delete
+	 * @return true if the delete was run
+	 */
+	boolean deleteMonster(String name);
+
+	/**
+	 * Gets a number that changes whenever a monster is added, changed or deleted. It can cost as
+	 * much as reading every monster, so it is only used to find changes in stores that cannot
+	 * give them with changesSince.
+	 *
+	 * @return the checksum, or null if it could not be had
+	 */
+	Long checksumMonsters();
+
+	/**
+	 * Gets a mark of the store's own clock, to read only the monsters changed after it with
+	 * changesSince. Stores that cannot tell what changed give null, and are always read whole.
+	 *
+	 * @return the watermark, or null if the store cannot give changes
+	 */
+	default Long syncWatermark(){
+		return null;
+	}
+
+	/**
+	 * Reads the monsters added, changed or deleted since a watermark, so a catalog can be kept up
+	 * to date without reading every monster. Monsters changed a little before the watermark can
+	 * be read again.
+	 *
+	 * @param watermark from syncWatermark, or from the last changes read
+	 * @return the changes, or null if they could not be read
+	 */
+	default MonsterChanges changesSince(long watermark){
+		return null;
+	}
+
+	/**
+	 * Sets how long a call may run before the store gives up on it. Stores that never wait ignore it.
+	 *
+	 * @param seconds the time in seconds, 0 for no limit
+	 */
+	default void setQueryTimeout(int seconds){
+	}
+
+	/**
+	 * Asks the store to stop the call running on it, from another thread. Stores that never wait ignore it.
+	 */
+	default void cancel(){
+	}
+
+}
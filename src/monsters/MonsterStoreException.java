@@ -0,0 +1,20 @@
+package monsters;
+
+/**
+ * Thrown when a monster store could not be read, such as when the database cannot be reached,
+ * is too slow, or its circuit breaker is open, so callers can tell that apart from there being
+ * no monsters.
+ */
+public class MonsterStoreException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param message what could not be done
+	 * @param cause why
+	 */
+	public MonsterStoreException(String message, Throwable cause){
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,436 @@
+package monsters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The monster catalog shared by everything in this process. It is loaded from the database
+ * once, the first time it is asked for, and every level made after that uses the same
+ * catalog instead of loading the whole table again.
+ *
+ * Every catalog loaded gets a version one higher than the last. A catalog is reloaded in the
+ * background when refresh or invalidate is called, or when polling finds that the Monsters table
+ * has changed. Levels keep the catalog they were made with; levels made after a reload get the
+ * new one.
+ *
+ * If the store can tell what changed (see MonsterStore.syncWatermark), every poll reads the
+ * monsters added, changed and deleted since the last one and applies them to the catalog, so
+ * only the rows that changed are read. The changes are made to a new catalog that takes the place
+ * of the old one all at once, so no one sees half of them. Stores that cannot tell what changed
+ * are polled with their checksum, which can cost a read of the whole table, and are read whole
+ * when it changes.
+ *
+ * Every catalog loaded from the database is saved to a snapshot file. At startup the catalog is
+ * read from the snapshot, so no one waits for the database, and checked against the database in
+ * the background; it is only loaded again if the table has changed since the snapshot. In offline
+ * mode the catalog only ever comes from the snapshot and the database is never used.
+ *
+ * If the database fails or is too slow, the catalog there is stays the latest, or the snapshot
+ * is used if there is none yet, or else an empty catalog, until a later reload gets through.
+ * With no snapshot, the calls made before the first catalog is loaded wait at most
+ * monsters.catalog.loadTimeout milliseconds for the database before they are given an empty catalog.
+ */
+public class SharedCatalog {
+
+	public static final long DEFAULT_POLL_INTERVAL = 30000;
+	public static final String DEFAULT_SNAPSHOT = ".dnd-monsters.snapshot";
+	public static final long DEFAULT_LOAD_TIMEOUT = 10000;
+
+	private static volatile SharedCatalog shared;
+
+	private final MonsterStore dbc;
+	private final long pollInterval;
+	private final Path snapshot;
+	private final boolean offline;
+	private final ScheduledExecutorService worker;
+	private final Object loadLock = new Object();
+	private final MonsterSearchIndex search = new MonsterSearchIndex();
+	private final long loadTimeout = Long.getLong("monsters.catalog.loadTimeout", DEFAULT_LOAD_TIMEOUT);
+
+	private volatile MonsterCatalog current;
+	private volatile long version = 0;
+	private Long lastChecksum;
+	private Long watermark;
+	private CompletableFuture<MonsterCatalog> pending;
+	/** The load of the first catalog, which every call to getCatalog made before there is one waits for. */
+	private CompletableFuture<MonsterCatalog> firstLoad;
+	private boolean polling = false;
+	private MonsterCatalog searched;
+
+	/**
+	 * Makes a catalog that is only loaded from the database.
+	 *
+	 * @param dbc the store to load the monsters with
+	 * @param pollInterval milliseconds between checks of the table for changes, 0 to never check
+	 */
+	public SharedCatalog(MonsterStore dbc, long pollInterval){
+		this(dbc, pollInterval, null, false);
+	}
+
+	/**
+	 * @param dbc the store to load the monsters with
+	 * @param pollInterval milliseconds between checks of the table for changes, 0 to never check
+	 * @param snapshot the file to start from and save to, or null for none
+	 * @param offline true to only read the snapshot and never use the database
+	 */
+	public SharedCatalog(MonsterStore dbc, long pollInterval, Path snapshot, boolean offline){
+		this.dbc = dbc;
+		this.pollInterval = pollInterval;
+		this.snapshot = snapshot;
+		this.offline = offline;
+		this.worker = Executors.newSingleThreadScheduledExecutor((task) -> {
+			Thread thread = new Thread(task, "monster-catalog");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return the catalog shared by this process. It polls every monsters.catalog.pollInterval
+	 * milliseconds, saves to the file monsters.catalog.snapshot (by default in the home directory)
+	 * and is offline if monsters.offline is true.
+	 */
+	public static SharedCatalog getShared(){
+		if (shared == null) {
+			synchronized (SharedCatalog.class) {
+				if (shared == null) {
+					Path file = Paths.get(System.getProperty("monsters.catalog.snapshot", Paths.get(System.getProperty("user.home"), DEFAULT_SNAPSHOT).toString()));
+					shared = new SharedCatalog(MonsterStore.open(), Long.getLong("monsters.catalog.pollInterval", DEFAULT_POLL_INTERVAL), file, Boolean.getBoolean("monsters.offline"));
+				}
+			}
+		}
+		return shared;
+	}
+
+	/**
+	 * @return the latest catalog of the shared catalog, see getCatalog
+	 */
+	public static MonsterCatalog get(){
+		return getShared().getCatalog();
+	}
+
+	/**
+	 * Gets the latest catalog. Only calls made before there is one can wait, and none of them
+	 * longer than the load timeout. The first of them reads the snapshot, or if there is none
+	 * starts loading from the database, and every one of them waits for that same load. Once the
+	 * first of them has waited for the timeout, all of them get an empty catalog until the load finishes.
+	 * Later calls return straight away, even while a reload is running.
+	 *
+	 * @return the catalog, empty if the monsters could not be loaded in time
+	 */
+	public MonsterCatalog getCatalog(){
+		MonsterCatalog catalog = current;
+		if (catalog != null) {
+			return catalog;
+		}
+		CompletableFuture<MonsterCatalog> loading;
+		boolean first = false;
+		synchronized (this) {
+			if (firstLoad == null) {
+				firstLoad = new CompletableFuture<MonsterCatalog>();
+				first = true;
+			}
+			loading = firstLoad;
+		}
+		if (first) {
+			startLoad(loading);
+		}
+		return awaitLoad(loading);
+	}
+
+	/**
+	 * Makes the snapshot the latest catalog, or starts loading the monsters from the database in
+	 * the background if there is none, and completes a future once there is a catalog. Only the
+	 * first call to getCatalog runs this, so only it takes loadLock.
+	 */
+	private void startLoad(CompletableFuture<MonsterCatalog> loading){
+		boolean revalidate = false;
+		boolean load = false;
+		synchronized (loadLock) {
+			if (current == null) {
+				if (readSnapshot()) {
+					revalidate = !offline;
+				} else if (offline) {
+					swap(new MonsterCatalog(null), null);
+				} else {
+					load = true;
+				}
+			}
+		}
+		if (load) {
+			refresh().whenComplete((catalog, error) -> {
+				if (error != null) {
+					loading.completeExceptionally(error);
+				} else {
+					loading.complete(catalog);
+				}
+			});
+		} else {
+			loading.complete(current);
+			if (revalidate) {
+				refresh();
+			}
+		}
+		startPolling();
+	}
+
+	/**
+	 * Waits for the first catalog up to the load timeout. If it is not loaded by then, the catalog
+	 * is empty until the load finishes, and every other call still waiting is given it as well.
+	 */
+	private MonsterCatalog awaitLoad(CompletableFuture<MonsterCatalog> loading){
+		try {
+			MonsterCatalog catalog = loading.get(loadTimeout, TimeUnit.MILLISECONDS);
+			if (catalog != null) {
+				return catalog;
+			}
+		} catch (TimeoutException e) {
+			System.out.println("The monsters took longer than " + loadTimeout + " ms to load, starting without them");
+		} catch (ExecutionException e) {
+			System.out.println("Could not load the monsters: " + e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			if (current == null) {
+				current = new MonsterCatalog(null);
+				version++;
+			}
+			loading.complete(current);
+			return current;
+		}
+	}
+
+	/**
+	 * @return the full-text index of the latest catalog, brought up to date the first time it is
+	 * asked for after a reload, by putting in and taking out only the monsters that changed
+	 */
+	public MonsterSearchIndex getSearchIndex(){
+		MonsterCatalog catalog = getCatalog();
+		synchronized (search) {
+			if (searched != catalog) {
+				search.sync(catalog.getAll());
+				searched = catalog;
+			}
+		}
+		return search;
+	}
+
+	/**
+	 * @return true if the catalog only ever comes from the snapshot
+	 */
+	public boolean isOffline(){
+		return offline;
+	}
+
+	/**
+	 * @return the version of the latest catalog, 0 before one has been loaded
+	 */
+	public long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Reloads the catalog in the background. Calls made while a reload is waiting to start share it.
+	 * When offline, it reads the snapshot again instead.
+	 *
+	 * @return the catalog once it has been reloaded
+	 */
+	public synchronized CompletableFuture<MonsterCatalog> refresh(){
+		if (pending == null) {
+			CompletableFuture<MonsterCatalog> next = new CompletableFuture<MonsterCatalog>();
+			pending = next;
+			worker.execute(() -> {
+				synchronized (this) {
+					pending = null;
+				}
+				try {
+					next.complete(reload());
+				} catch (RuntimeException e) {
+					next.completeExceptionally(e);
+				}
+			});
+			return next;
+		}
+		return pending;
+	}
+
+	/**
+	 * Tells the catalog that the Monsters table was changed, so it is reloaded in the background.
+	 */
+	public void invalidate(){
+		refresh();
+	}
+
+	/**
+	 * Stops polling and reloading. The latest catalog can still be had.
+	 */
+	public void close(){
+		worker.shutdownNow();
+	}
+
+	/**
+	 * Loads the monsters and makes them the latest catalog with a new version, and saves it to the
+	 * snapshot. Only the changes are loaded if they can be. Otherwise the whole table is loaded,
+	 * unless the store cannot tell what changed and its checksum is the one the catalog was loaded
+	 * with. If the monsters could not be loaded, the catalog there is is kept, see keepCatalog.
+	 */
+	private MonsterCatalog reload(){
+		synchronized (loadLock) {
+			if (offline) {
+				readSnapshot();
+				return current;
+			}
+			if (current != null && watermark != null) {
+				MonsterCatalog synced = loadChanges();
+				if (synced == current) {
+					return current;
+				}
+				if (synced != null) {
+					swap(synced, null);
+					saveSnapshot();
+					return current;
+				}
+			}
+			Long mark = dbc.syncWatermark();
+			Long checksum = null;
+			if (mark == null) {
+				checksum = dbc.checksumMonsters();
+				if (checksum != null && checksum.equals(lastChecksum) && current != null) {
+					return current;
+				}
+			}
+			ArrayList<Monster> monsters;
+			try {
+				monsters = dbc.getAllMonsters();
+			} catch (MonsterStoreException e) {
+				System.out.println(e.getMessage() + ": " + e.getCause());
+				return keepCatalog();
+			}
+			watermark = mark;
+			swap(new MonsterCatalog(monsters), checksum);
+			saveSnapshot();
+			return current;
+		}
+	}
+
+	/**
+	 * Keeps the latest catalog when the monsters could not be loaded, or falls back to the snapshot,
+	 * or to an empty catalog, if there is none yet. Its checksum is left as it is, so the next
+	 * poll that gets through loads the monsters again.
+	 */
+	private MonsterCatalog keepCatalog(){
+		if (current == null && !readSnapshot()) {
+			swap(new MonsterCatalog(null), null);
+		}
+		return current;
+	}
+
+	/**
+	 * Takes the monsters deleted since the watermark out of the latest catalog and applies the
+	 * monsters added or changed since. A monster deleted and then added again is kept.
+	 *
+	 * @return the catalog with the changes, the latest catalog if nothing changed, or null if the
+	 * changes could not be read and everything has to be loaded again
+	 */
+	private MonsterCatalog loadChanges(){
+		MonsterChanges changes = dbc.changesSince(watermark);
+		if (changes == null) {
+			return null;
+		}
+		HashSet<String> gone = new HashSet<String>(changes.getDeleted());
+		for (Monster m : changes.getChanged()) {
+			gone.remove(m.getName());
+		}
+		MonsterCatalog synced = current.withoutMonsters(gone).withMonsters(changes.getChanged());
+		watermark = changes.getWatermark();
+		return synced;
+	}
+
+	private void saveSnapshot(){
+		if (snapshot == null) {
+			return;
+		}
+		try {
+			new CatalogSnapshot(current, lastChecksum, watermark).write(snapshot);
+		} catch (IOException e) {
+			System.out.println("Could not save the monster snapshot: " + e);
+		}
+	}
+
+	/**
+	 * Makes the catalog in the snapshot the latest catalog.
+	 *
+	 * @return true if there was a snapshot to read
+	 */
+	private boolean readSnapshot(){
+		if (snapshot == null || !Files.isReadable(snapshot)) {
+			return false;
+		}
+		try {
+			CatalogSnapshot saved = CatalogSnapshot.read(snapshot);
+			watermark = saved.getWatermark();
+			swap(saved.getCatalog(), saved.getChecksum());
+			return true;
+		} catch (IOException e) {
+			System.out.println("Could not read the monster snapshot: " + e);
+			return false;
+		}
+	}
+
+	private void swap(MonsterCatalog catalog, Long checksum){
+		lastChecksum = checksum;
+		synchronized (this) {
+			current = catalog;
+			version++;
+		}
+	}
+
+	/**
+	 * Reads the changes since the last reload if the store can tell what changed, or else reloads
+	 * the catalog if the checksum of the table is not the one it was loaded with.
+	 */
+	private void poll(){
+		boolean tracked;
+		synchronized (loadLock) {
+			tracked = watermark != null;
+		}
+		if (tracked) {
+			refresh();
+			return;
+		}
+		Long checksum = dbc.checksumMonsters();
+		boolean changed;
+		synchronized (loadLock) {
+			changed = checksum != null && !checksum.equals(lastChecksum);
+		}
+		if (changed) {
+			refresh();
+		}
+	}
+
+	private synchronized void startPolling(){
+		if (polling || offline || pollInterval <= 0) {
+			return;
+		}
+		polling = true;
+		worker.scheduleWithFixedDelay(() -> {
+			try {
+				poll();
+			} catch (RuntimeException e) {
+				System.out.println(e);
+			}
+		}, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+	}
+
+}